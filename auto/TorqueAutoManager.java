@@ -1,38 +1,102 @@
 package org.texastorque.torquelib.auto;
 
+import edu.wpi.first.networktables.EntryListenerFlags;
 import edu.wpi.first.networktables.NetworkTableInstance;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * AutoManager base class. Handles backend methods
  * and containers.
  *
+ * Sequences can be added as factories, which are only built when they are
+ * needed. The selection on the "Auto List" is tracked by a NetworkTables
+ * listener, and the selected sequence is built and compiled on a background
+ * thread as soon as the selection changes, so chooseCurrentSequence() does
+ * not have to look up or build anything at the start of autonomous.
+ *
+ * The built sequence is not warmed up, since running its commands would
+ * drive real subsystems. To warm up its hot paths, register them on a
+ * TorqueWarmup against simulated outputs, for example from onSelectionChange.
+ *
  * Part of the Texas Torque Autonomous Framework.
  *
  * @author Justus Languell
  * @author Jack Pittenger
  */
 public abstract class TorqueAutoManager {
-    private final HashMap<String, TorqueSequence> autoSequences;
+    private final ConcurrentHashMap<String, Supplier<TorqueSequence>> autoFactories;
+    private final ConcurrentHashMap<String, TorqueSequence> autoSequences;
     private final SendableChooser<String> autoSelector = new SendableChooser<String>();
 
+    private final ExecutorService sequenceBuilder = Executors.newSingleThreadExecutor(r -> {
+        final Thread thread = new Thread(r, "Auto Builder");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    private String preparedChoice = null;
+
+    // The raw selection from the dashboard and the first sequence added, see getSelectedChoice.
+    private volatile String selectedChoice = null, defaultChoice = null;
+    private String resolvedChoice = null;
+    private final CopyOnWriteArrayList<Consumer<String>> selectionListeners =
+            new CopyOnWriteArrayList<Consumer<String>>();
+
     private TorqueSequence currentSequence;
     private boolean sequenceEnded;
 
     private final String autoSelectorKey = "Auto List";
 
     public TorqueAutoManager() {
-        autoSequences = new HashMap<String, TorqueSequence>();
+        autoFactories = new ConcurrentHashMap<String, Supplier<TorqueSequence>>();
+        autoSequences = new ConcurrentHashMap<String, TorqueSequence>();
 
         addSequence("Empty", new TorqueEmpty("Empty")); // default
 
         init();
         displayChoices();
+
+        NetworkTableInstance.getDefault()
+                .getTable("SmartDashboard")
+                .getSubTable(autoSelectorKey)
+                .getEntry("selected")
+                .addListener(notification -> {
+                    if (notification.value.isString()) select(notification.value.getString());
+                }, EntryListenerFlags.kImmediate | EntryListenerFlags.kNew | EntryListenerFlags.kUpdate);
+    }
+
+    /**
+     * Called on the NetworkTables listener thread when the selection changes.
+     */
+    private final synchronized void select(final String selection) {
+        selectedChoice = selection;
+        final String autoChoice = getSelectedChoice();
+        if (autoChoice == null || autoChoice.equals(resolvedChoice)) return;
+        resolvedChoice = autoChoice;
+
+        if (autoFactories.containsKey(autoChoice) && !autoSequences.containsKey(autoChoice))
+            sequenceBuilder.execute(() -> buildSequence(autoChoice));
+        for (final Consumer<String> listener : selectionListeners) listener.accept(autoChoice);
     }
 
+    /**
+     * Calls back when the operator changes the selected auto, for example to
+     * warm up its paths. The callback runs on the NetworkTables listener thread.
+     *
+     * @param listener The callback, which receives the name of the selected auto.
+     */
+    public final void onSelectionChange(final Consumer<String> listener) { selectionListeners.add(listener); }
+
     /**
      * This is where we add sequenes
      */
@@ -40,12 +104,20 @@ public abstract class TorqueAutoManager {
 
     protected final void addSequence(String name, TorqueSequence seq) {
         autoSequences.put(name, seq);
+        addSequence(name, () -> seq);
+    }
 
-        if (autoSequences.size() == 0) {
+    /**
+     * Add a sequence that is built the first time it is selected or chosen.
+     */
+    protected final void addSequence(String name, Supplier<TorqueSequence> factory) {
+        if (autoFactories.isEmpty()) {
             autoSelector.setDefaultOption(name, name);
+            defaultChoice = name;
         } else {
             autoSelector.addOption(name, name);
         }
+        autoFactories.put(name, factory);
     }
 
     public final void runCurrentSequence() {
@@ -58,21 +130,69 @@ public abstract class TorqueAutoManager {
     }
 
     public final void chooseCurrentSequence() {
-        String autoChoice = NetworkTableInstance.getDefault()
-                                    .getTable("SmartDashboard")
-                                    .getSubTable(autoSelectorKey)
-                                    .getEntry("selected")
-                                    .getString("N/A");
+        String autoChoice = getSelectedChoice();
 
-        if (autoSequences.containsKey(autoChoice)) {
+        if (autoFactories.containsKey(autoChoice)) {
             System.out.println("Switching to auto: " + autoChoice);
-            currentSequence = autoSequences.get(autoChoice);
+            currentSequence = buildSequence(autoChoice);
         }
 
         resetCurrentSequence();
         sequenceEnded = false;
     }
 
+    /**
+     * Build the selected sequence in the background if the selection changed.
+     * The selection listener already does this, so calling it from
+     * disabledPeriodic is only needed for options added after a selection.
+     */
+    public final void prepareSelectedSequence() {
+        final String autoChoice = getSelectedChoice();
+        if (autoChoice.equals(preparedChoice)) return;
+        preparedChoice = autoChoice;
+
+        if (autoFactories.containsKey(autoChoice) && !autoSequences.containsKey(autoChoice))
+            sequenceBuilder.execute(() -> buildSequence(autoChoice));
+    }
+
+    /**
+     * Returns the built sequence, building and compiling it first if needed.
+     * If the background thread is already building it, this waits for it.
+     */
+    private final TorqueSequence buildSequence(final String name) {
+        return autoSequences.computeIfAbsent(name, n -> {
+            final long start = System.nanoTime();
+            final TorqueSequence seq = autoFactories.get(n).get();
+            seq.compile();
+            System.out.printf("Built auto %s in %.1f ms\n", n, (System.nanoTime() - start) * 1e-6);
+            return seq;
+        });
+    }
+
+    /**
+     * Returns a sequence by name, building it first if needed.
+     *
+     * @return The sequence, or null if there is no sequence with that name.
+     */
+    public final TorqueSequence getSequence(final String name) {
+        return autoFactories.containsKey(name) ? buildSequence(name) : null;
+    }
+
+    /**
+     * Returns the names of every sequence, for example to simulate them all.
+     */
+    public final Set<String> getSequenceNames() { return Collections.unmodifiableSet(autoFactories.keySet()); }
+
+    /**
+     * Returns the name of the selected auto, kept up to date by a listener.
+     * Falls back to the default option, the first sequence added, until a
+     * known sequence is selected, like SBSelector.
+     */
+    public final String getSelectedChoice() {
+        final String choice = selectedChoice;
+        return choice != null && autoFactories.containsKey(choice) ? choice : defaultChoice;
+    }
+
     /**
      * Set sequence with sequence object
      */
@@ -0,0 +1,163 @@
+package org.texastorque.torquelib.auto;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+/**
+ * Records how long each command of a sequence spends in init, continuous,
+ * endCondition and end, and how long each block takes.
+ *
+ * Events are stored in preallocated arrays, so recording does not allocate.
+ * Events past the capacity are dropped and counted. After a run, export the
+ * timeline as a Chrome trace (open it in chrome://tracing or Perfetto) to see
+ * slow commands, blocks waiting on a straggler and dead time between blocks.
+ *
+ * Usage:
+ * <pre>
+ * final TorqueAutoProfiler profiler = new TorqueAutoProfiler();
+ * sequence.setProfiler(profiler);
+ * ...
+ * profiler.export(Paths.get("/home/lvuser/auto.json"));
+ * </pre>
+ *
+ * Times are measured on the real clock, see TorqueClock.
+ *
+ * Part of the Texas Torque Autonomous Framework.
+ *
+ * @author Justus Languell
+ */
+public final class TorqueAutoProfiler {
+    public static final int INIT = 0, CONTINUOUS = 1, END_CONDITION = 2, END = 3, BLOCK = 4;
+    private static final String[] PHASE_NAMES = {"init", "continuous", "endCondition", "end", "block"};
+
+    private final ArrayList<String> names = new ArrayList<String>();
+    private final int[] ids;
+    private final byte[] phases;
+    private final long[] starts, durations;
+    private int count = 0;
+    private long dropped = 0;
+
+    /**
+     * Creates a profiler with room for 65536 events.
+     */
+    public TorqueAutoProfiler() { this(1 << 16); }
+
+    /**
+     * Creates a profiler.
+     *
+     * @param capacity The number of events to keep.
+     */
+    public TorqueAutoProfiler(final int capacity) {
+        ids = new int[capacity];
+        phases = new byte[capacity];
+        starts = new long[capacity];
+        durations = new long[capacity];
+    }
+
+    /**
+     * Registers a timeline row, such as a command or a block.
+     *
+     * @param name The name of the row.
+     * @return The row id to pass to record.
+     */
+    public final synchronized int register(final String name) {
+        names.add(name);
+        return names.size() - 1;
+    }
+
+    /**
+     * Returns a timestamp to start timing an event.
+     *
+     * @return The current time in nanoseconds.
+     */
+    public final long start() { return System.nanoTime(); }
+
+    /**
+     * Records an event from start until now.
+     *
+     * @param id    The row id returned by register.
+     * @param phase The phase, one of INIT, CONTINUOUS, END_CONDITION, END or BLOCK.
+     * @param start The timestamp returned by start.
+     */
+    public final void record(final int id, final int phase, final long start) {
+        final long end = System.nanoTime();
+        if (count >= ids.length) {
+            dropped++;
+            return;
+        }
+        ids[count] = id;
+        phases[count] = (byte)phase;
+        starts[count] = start;
+        durations[count] = end - start;
+        count++;
+    }
+
+    /**
+     * Forgets every recorded event, keeping the registered rows.
+     */
+    public final void clear() {
+        count = 0;
+        dropped = 0;
+    }
+
+    public final int getCount() { return count; }
+
+    public final long getDroppedCount() { return dropped; }
+
+    /**
+     * Builds a Chrome trace of the recorded events. Each registered row is a
+     * thread in the trace and timestamps are relative to the first event.
+     *
+     * @return The trace as JSON.
+     */
+    public final String toChromeTrace() {
+        final StringBuilder json = new StringBuilder(128 + count * 96);
+        json.append("{\"traceEvents\":[");
+
+        synchronized (this) {
+            for (int id = 0; id < names.size(); id++) {
+                if (id > 0) json.append(',');
+                json.append("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":0,\"tid\":").append(id);
+                json.append(",\"args\":{\"name\":\"");
+                escape(json, names.get(id));
+                json.append("\"}}");
+            }
+        }
+
+        long origin = Long.MAX_VALUE;
+        for (int i = 0; i < count; i++) origin = Math.min(origin, starts[i]);
+        for (int i = 0; i < count; i++) {
+            json.append(",{\"name\":\"").append(PHASE_NAMES[phases[i]]).append("\",\"ph\":\"X\",\"pid\":0,\"tid\":");
+            json.append(ids[i]).append(",\"ts\":").append((starts[i] - origin) * 1e-3);
+            json.append(",\"dur\":").append(durations[i] * 1e-3).append('}');
+        }
+
+        json.append("],\"otherData\":{\"dropped\":").append(dropped).append("}}");
+        return json.toString();
+    }
+
+    /**
+     * Writes the Chrome trace to a file.
+     *
+     * @param file The file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public final void export(final Path file) throws IOException {
+        Files.write(file, toChromeTrace().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static final void escape(final StringBuilder json, final String text) {
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (c == '"' || c == '\\')
+                json.append('\\').append(c);
+            else if (c < ' ')
+                json.append(String.format("\\u%04x", (int)c));
+            else
+                json.append(c);
+        }
+    }
+}
@@ -5,16 +5,47 @@ import java.util.ArrayList;
 /**
  * Basically a typedef to wrap ArrayList<TorqueCommand> with Block
  *
+ * A block runs its commands together and ends depending on its type:
+ * - ALL ends when every command has ended (the default).
+ * - RACE ends when any command ends.
+ * - DEADLINE ends when the first command ends.
+ * Commands still running when a block ends are interrupted.
+ *
  * Part of the Texas Torque Autonomous Framework.
  *
  * @author Justus
  */
 public final class TorqueBlock extends ArrayList<TorqueCommand> {
+    public enum Type { ALL, RACE, DEADLINE }
+
+    private Type type = Type.ALL;
+
     public TorqueBlock() { super(); }
 
     public TorqueBlock(TorqueCommand... commands) {
         for (TorqueCommand command : commands) { add(command); }
     }
 
+    public TorqueBlock(Type type, TorqueCommand... commands) {
+        this(commands);
+        this.type = type;
+    }
+
+    /**
+     * Creates a block that ends when any of its commands ends.
+     */
+    public static TorqueBlock race(TorqueCommand... commands) { return new TorqueBlock(Type.RACE, commands); }
+
+    /**
+     * Creates a block that ends when the deadline command ends.
+     */
+    public static TorqueBlock deadline(TorqueCommand deadline, TorqueCommand... others) {
+        final TorqueBlock block = new TorqueBlock(Type.DEADLINE, deadline);
+        for (TorqueCommand command : others) { block.add(command); }
+        return block;
+    }
+
     public final void addCommand(TorqueCommand command) { add(command); }
-}
\ No newline at end of file
+
+    public final Type getType() { return type; }
+}
@@ -10,8 +10,12 @@ package org.texastorque.torquelib.auto;
 public abstract class TorqueCommand {
     private boolean ended = false, started = false;
 
+    private TorqueAutoProfiler profiler = null;
+    private int profilerId = -1;
+
     public final boolean run() {
         if (ended) return ended;
+        if (profiler != null) return runProfiled();
         if (!started) {
             init();
             started = true;
@@ -24,12 +28,60 @@ public abstract class TorqueCommand {
         return ended;
     }
 
+    private final boolean runProfiled() {
+        long start;
+        if (!started) {
+            start = profiler.start();
+            init();
+            profiler.record(profilerId, TorqueAutoProfiler.INIT, start);
+            started = true;
+        }
+        start = profiler.start();
+        continuous();
+        profiler.record(profilerId, TorqueAutoProfiler.CONTINUOUS, start);
+
+        start = profiler.start();
+        final boolean done = endCondition();
+        profiler.record(profilerId, TorqueAutoProfiler.END_CONDITION, start);
+        if (done) {
+            start = profiler.start();
+            end();
+            profiler.record(profilerId, TorqueAutoProfiler.END, start);
+            ended = true;
+        }
+        return ended;
+    }
+
+    /**
+     * Sets the profiler that records this command, or null to stop recording.
+     */
+    final void setProfiler(final TorqueAutoProfiler profiler, final int profilerId) {
+        this.profiler = profiler;
+        this.profilerId = profilerId;
+    }
+
     public final void reset() {
         end();
         ended = false;
         started = false;
     }
 
+    /**
+     * Ends the command early if it is running, like when its block ends first.
+     */
+    final void interrupt() {
+        if (started && !ended) end();
+        ended = true;
+    }
+
+    /**
+     * Wraps this command so it ends after a timeout.
+     *
+     * @param timeout The time the command may run in seconds.
+     * @return The wrapped command.
+     */
+    public final TorqueCommand withTimeout(final double timeout) { return new TorqueTimeout(this, timeout); }
+
     protected abstract void init();
 
     protected abstract void continuous();
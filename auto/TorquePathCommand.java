@@ -0,0 +1,113 @@
+package org.texastorque.torquelib.auto;
+
+import edu.wpi.first.math.trajectory.Trajectory;
+import org.texastorque.torquelib.util.TorqueClock;
+
+/**
+ * Follows a trajectory from setpoint tables sampled at the loop period.
+ *
+ * The trajectory is sampled once when the command is constructed, so
+ * continuous() only indexes into primitive arrays by elapsed time and does
+ * not search, interpolate or allocate.
+ *
+ * Part of the Texas Torque Autonomous Framework.
+ *
+ * @author Justus Languell
+ */
+public final class TorquePathCommand extends TorqueCommand {
+    /**
+     * Receives the setpoint of each tick.
+     */
+    @FunctionalInterface
+    public interface Follower {
+        /**
+         * Drives toward a setpoint.
+         *
+         * @param x            The x position in meters.
+         * @param y            The y position in meters.
+         * @param heading      The heading in radians.
+         * @param velocity     The velocity in meters per second.
+         * @param acceleration The acceleration in meters per second squared.
+         */
+        public void follow(double x, double y, double heading, double velocity, double acceleration);
+    }
+
+    private final Follower follower;
+    private final double period, totalTime;
+    private final double[] x, y, heading, velocity, acceleration;
+
+    private double start;
+    private boolean following = false;
+
+    /**
+     * Creates a path command sampled at 50 Hz.
+     *
+     * @param trajectory The trajectory to follow.
+     * @param follower   The follower that receives the setpoints.
+     */
+    public TorquePathCommand(final Trajectory trajectory, final Follower follower) {
+        this(trajectory, .02, follower);
+    }
+
+    /**
+     * Creates a path command.
+     *
+     * @param trajectory The trajectory to follow.
+     * @param period     The loop period to sample at in seconds.
+     * @param follower   The follower that receives the setpoints.
+     */
+    public TorquePathCommand(final Trajectory trajectory, final double period, final Follower follower) {
+        if (period <= 0) throw new IllegalArgumentException("Sample period must be positive");
+        this.follower = follower;
+        this.period = period;
+        this.totalTime = trajectory.getTotalTimeSeconds();
+
+        final int samples = (int)Math.ceil(totalTime / period) + 1;
+        x = new double[samples];
+        y = new double[samples];
+        heading = new double[samples];
+        velocity = new double[samples];
+        acceleration = new double[samples];
+        for (int i = 0; i < samples; i++) {
+            final Trajectory.State state = trajectory.sample(Math.min(i * period, totalTime));
+            x[i] = state.poseMeters.getX();
+            y[i] = state.poseMeters.getY();
+            heading[i] = state.poseMeters.getRotation().getRadians();
+            velocity[i] = state.velocityMetersPerSecond;
+            acceleration[i] = state.accelerationMetersPerSecondSq;
+        }
+    }
+
+    @Override
+    protected final void init() {
+        start = TorqueClock.seconds();
+        following = true;
+    }
+
+    @Override
+    protected final void continuous() {
+        // Index by elapsed time rather than by tick count so skipped ticks do not slow the path down.
+        final int i = Math.min((int)((TorqueClock.seconds() - start) / period), x.length - 1);
+        follower.follow(x[i], y[i], heading[i], velocity[i], acceleration[i]);
+    }
+
+    @Override
+    protected final boolean endCondition() {
+        return TorqueClock.seconds() - start >= totalTime;
+    }
+
+    /**
+     * Holds the final pose at zero velocity.
+     */
+    @Override
+    protected final void end() {
+        if (!following) return;
+        following = false;
+        final int last = x.length - 1;
+        follower.follow(x[last], y[last], heading[last], 0, 0);
+    }
+
+    public final int getSampleCount() { return x.length; }
+
+    public final double getTotalTime() { return totalTime; }
+}
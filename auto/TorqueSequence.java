@@ -15,39 +15,195 @@ public abstract class TorqueSequence {
     private int blockIndex = 0;
     private String name = "unnamed";
 
+    // The blocks flattened into one array, block i is flat[blockStarts[i]] to flat[blockStarts[i + 1]].
+    private TorqueCommand[] flat = new TorqueCommand[0];
+    private int[] blockStarts = {0};
+    private TorqueBlock.Type[] blockTypes = new TorqueBlock.Type[0];
+    private int blockCount = 0;
+    // Bit i is set once flat[i] has ended.
+    private long[] finished = new long[0];
+    private boolean compiled = false;
+
+    private TorqueAutoProfiler profiler = null;
+    private int[] blockProfilerIds = new int[0];
+    private long blockStart = -1;
+
+    private boolean chaining = false;
+    private long chainBudgetNanos = 2000000;
+
     public TorqueSequence() {}
 
     public TorqueSequence(String name) { this.name = name; }
 
     protected abstract void init();
 
-    protected void addBlock(TorqueBlock block) { commands.add(block); }
+    protected void addBlock(TorqueBlock block) {
+        commands.add(block);
+        compiled = false;
+    }
 
-    public final void run() {
-        if (blockIndex < commands.size()) {
-            boolean blockEnded = true;
-            for (TorqueCommand command : commands.get(blockIndex)) {
-                if (!command.run()) blockEnded = false;
+    /**
+     * Flattens the blocks into arrays so run() and reset() do not allocate.
+     * Called automatically the first time the sequence runs or resets after
+     * a block is added. Blocks must not be changed after they are compiled.
+     */
+    public final void compile() {
+        blockCount = commands.size();
+        blockStarts = new int[blockCount + 1];
+        blockTypes = new TorqueBlock.Type[blockCount];
+        int size = 0;
+        for (int b = 0; b < blockCount; b++) {
+            blockStarts[b] = size;
+            blockTypes[b] = commands.get(b).getType();
+            size += commands.get(b).size();
+        }
+        blockStarts[blockCount] = size;
+
+        flat = new TorqueCommand[size];
+        for (int b = 0; b < blockCount; b++) {
+            final TorqueBlock block = commands.get(b);
+            for (int i = 0; i < block.size(); i++) flat[blockStarts[b] + i] = block.get(i);
+        }
+
+        finished = new long[(size + 63) >>> 6];
+        compiled = true;
+        if (profiler != null) attachProfiler();
+    }
+
+    /**
+     * Records every command and block of this sequence with a profiler.
+     *
+     * @param profiler The profiler, or null to stop recording.
+     */
+    public final void setProfiler(final TorqueAutoProfiler profiler) {
+        this.profiler = profiler;
+        if (!compiled)
+            compile();
+        else if (profiler != null)
+            attachProfiler();
+        if (profiler == null)
+            for (int i = 0; i < flat.length; i++) flat[i].setProfiler(null, -1);
+    }
+
+    private final void attachProfiler() {
+        blockProfilerIds = new int[blockCount];
+        for (int b = 0; b < blockCount; b++) {
+            blockProfilerIds[b] = profiler.register(String.format("%s block %d", name, b));
+            for (int i = blockStarts[b]; i < blockStarts[b + 1]; i++) {
+                String command = flat[i].getClass().getSimpleName();
+                if (command.isEmpty()) command = flat[i].getClass().getName();
+                flat[i].setProfiler(profiler, profiler.register(String.format("%s block %d %s", name, b, command)));
             }
-            if (blockEnded) blockIndex++;
-        } else if (!ended)
+        }
+    }
+
+    public final void run() {
+        if (!compiled) compile();
+        if (blockIndex >= blockCount) {
             ended = true;
+            return;
+        }
+
+        // When a block ends, start the next one in this tick instead of idling for a
+        // loop period, and with chaining keep going while blocks end and the budget lasts.
+        long start = 0;
+        for (int advanced = 0; blockIndex < blockCount && runBlock(blockIndex); advanced++) {
+            blockIndex++;
+            if (advanced == 0)
+                start = System.nanoTime();
+            else if (!chaining || System.nanoTime() - start >= chainBudgetNanos)
+                break;
+        }
+        if (blockIndex >= blockCount) ended = true;
+    }
+
+    /**
+     * Enable or disable same tick chaining. The next block always starts in
+     * the same tick the previous block ends. When chaining is enabled, the
+     * sequence also keeps starting blocks in that tick for as long as they
+     * end immediately and the budget lasts. Disabled by default.
+     *
+     * The budget is measured on the real clock, see TorqueClock.
+     *
+     * @param chaining To chain or not to chain.
+     * @param budget   The time chained blocks may take per tick in seconds.
+     */
+    public final void setChaining(final boolean chaining, final double budget) {
+        this.chaining = chaining;
+        this.chainBudgetNanos = Math.round(budget * 1e9);
+    }
+
+    /**
+     * Enable or disable same tick chaining with a 2 ms budget.
+     *
+     * @param chaining To chain or not to chain.
+     */
+    public final void setChaining(final boolean chaining) { setChaining(chaining, .002); }
+
+    public final boolean isChaining() { return chaining; }
+
+    /**
+     * Runs every unfinished command of a block once.
+     *
+     * @return If the block ended this tick, in which case its remaining commands are interrupted.
+     */
+    private final boolean runBlock(final int block) {
+        final int start = blockStarts[block], end = blockStarts[block + 1];
+        if (profiler != null && blockStart < 0) blockStart = profiler.start();
+        boolean allEnded = true, anyEnded = false;
+        for (int i = start; i < end; i++) {
+            if (isFinished(i) || flat[i].run()) {
+                setFinished(i);
+                anyEnded = true;
+            } else
+                allEnded = false;
+        }
+
+        final boolean blockEnded;
+        switch (blockTypes[block]) {
+        case RACE: blockEnded = anyEnded || start == end; break;
+        case DEADLINE: blockEnded = start == end || isFinished(start); break;
+        default: blockEnded = allEnded; break;
+        }
+
+        if (blockEnded && !allEnded) {
+            for (int i = start; i < end; i++) {
+                if (isFinished(i)) continue;
+                flat[i].interrupt();
+                setFinished(i);
+            }
+        }
+        if (blockEnded && profiler != null) {
+            profiler.record(blockProfilerIds[block], TorqueAutoProfiler.BLOCK, blockStart);
+            blockStart = -1;
+        }
+        return blockEnded;
     }
 
     public boolean hasEnded() { return ended; }
 
     public final void reset() {
+        if (!compiled) compile();
         ended = false;
         blockIndex = 0;
-        for (TorqueBlock block : commands) {
-            for (TorqueCommand command : block) { command.reset(); }
-        }
+        blockStart = -1;
+        for (int i = 0; i < flat.length; i++) flat[i].reset();
+        for (int w = 0; w < finished.length; w++) finished[w] = 0;
     }
 
     public final void resetBlock() {
+        if (!compiled) compile();
         ended = false;
-        for (TorqueCommand command : commands.get(blockIndex)) command.reset();
+        if (blockIndex >= blockCount) return;
+        for (int i = blockStarts[blockIndex]; i < blockStarts[blockIndex + 1]; i++) {
+            flat[i].reset();
+            finished[i >>> 6] &= ~(1L << i);
+        }
     }
 
+    private final boolean isFinished(final int i) { return (finished[i >>> 6] & (1L << i)) != 0; }
+
+    private final void setFinished(final int i) { finished[i >>> 6] |= 1L << i; }
+
     public String getName() { return name; }
 }
\ No newline at end of file
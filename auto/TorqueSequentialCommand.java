@@ -0,0 +1,162 @@
+package org.texastorque.torquelib.auto;
+
+import java.util.concurrent.Semaphore;
+import java.util.function.BooleanSupplier;
+import org.texastorque.torquelib.util.TorqueClock;
+
+/**
+ * A command written as plain sequential code instead of a state machine.
+ *
+ * <pre>
+ * protected void body() {
+ *     intake.setState(IntakeState.DOWN);
+ *     waitSeconds(.5);
+ *     shooter.setState(ShooterState.SHOOT);
+ *     waitUntil(shooter::isDone);
+ * }
+ * </pre>
+ *
+ * The body runs on its own thread with a small stack, but never at the same
+ * time as the robot loop: each tick, continuous() hands control to the body
+ * and blocks until the body yields with one of the wait methods. So the body
+ * runs exactly once per tick, in step with the loop, and needs no locking.
+ * It must not block on anything other than the wait methods.
+ *
+ * Each tick costs two thread handoffs, a few microseconds each, so dozens of
+ * these commands can run at once. The thread is created when the command
+ * starts and exits when it ends.
+ *
+ * If the command ends early, for example when its block ends first, the
+ * next wait throws to unwind the body. Do not catch Throwable or Error in
+ * the body.
+ *
+ * Part of the Texas Torque Autonomous Framework.
+ *
+ * @author Justus Languell
+ */
+public abstract class TorqueSequentialCommand extends TorqueCommand {
+    private static final long STACK_SIZE = 64 * 1024;
+
+    private static final class Cancelled extends Error {
+        private static final long serialVersionUID = 1L;
+
+        private Cancelled() { super(null, null, false, false); }
+    }
+
+    private static final Cancelled CANCELLED = new Cancelled();
+
+    private final Semaphore resume = new Semaphore(0), yielded = new Semaphore(0);
+    private Thread thread = null;
+    private volatile boolean done = false, cancelled = false;
+    private volatile Throwable error = null;
+
+    /**
+     * The steps of the command. Runs until the first wait in the first tick.
+     */
+    protected abstract void body();
+
+    /**
+     * Called when the command ends, whether the body finished or was cut short.
+     */
+    protected void onEnd() {}
+
+    @Override
+    protected final void init() {
+        done = false;
+        cancelled = false;
+        error = null;
+        String name = getClass().getSimpleName();
+        if (name.isEmpty()) name = getClass().getName();
+        thread = new Thread(null, this::loop, name, STACK_SIZE);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private final void loop() {
+        resume.acquireUninterruptibly();
+        try {
+            if (!cancelled) body();
+        } catch (final Cancelled e) {
+        } catch (final Throwable e) {
+            error = e;
+        }
+        done = true;
+        yielded.release();
+    }
+
+    @Override
+    protected final void continuous() {
+        if (done) return;
+        resume.release();
+        yielded.acquireUninterruptibly();
+        if (error != null) throw new RuntimeException("TorqueSequentialCommand body failed", error);
+    }
+
+    @Override
+    protected final boolean endCondition() {
+        return done;
+    }
+
+    @Override
+    protected final void end() {
+        if (thread == null) return;
+        if (!done) {
+            cancelled = true;
+            resume.release();
+            yielded.acquireUninterruptibly();
+        }
+        thread = null;
+        onEnd();
+    }
+
+    /**
+     * Gives control back to the robot loop until the next tick.
+     */
+    protected final void yieldTick() {
+        yielded.release();
+        resume.acquireUninterruptibly();
+        if (cancelled) throw CANCELLED;
+    }
+
+    /**
+     * Waits a number of ticks.
+     *
+     * @param ticks The number of ticks to wait.
+     */
+    protected final void waitTicks(final int ticks) {
+        for (int i = 0; i < ticks; i++) yieldTick();
+    }
+
+    /**
+     * Waits until a time has passed on TorqueClock, checked once per tick.
+     *
+     * @param seconds The time to wait in seconds.
+     */
+    protected final void waitSeconds(final double seconds) {
+        final double end = TorqueClock.seconds() + seconds;
+        while (TorqueClock.seconds() < end) yieldTick();
+    }
+
+    /**
+     * Waits until a condition is true, checked once per tick.
+     *
+     * @param condition The condition.
+     */
+    protected final void waitUntil(final BooleanSupplier condition) {
+        while (!condition.getAsBoolean()) yieldTick();
+    }
+
+    /**
+     * Waits until a trigger fires.
+     *
+     * @param trigger The trigger, armed by this call and disarmed when it fires.
+     */
+    protected final void waitFor(final TorqueTrigger trigger) {
+        trigger.arm();
+        try {
+            while (!trigger.hasFired()) yieldTick();
+        } finally {
+            trigger.disarm();
+        }
+    }
+}
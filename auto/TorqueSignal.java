@@ -0,0 +1,109 @@
+package org.texastorque.torquelib.auto;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.DoublePredicate;
+
+/**
+ * A value published by its producer, such as an encoder position, a gyro
+ * angle or a vision lock, that commands can wait on.
+ *
+ * The producer calls publish() once per new reading, which evaluates only
+ * the armed triggers on that signal. Waiting commands then check a flag
+ * instead of reading hardware and testing the condition every tick.
+ *
+ * Usage:
+ * <pre>
+ * public static final TorqueSignal shooterRPM = new TorqueSignal("Shooter RPM");
+ * ...
+ * shooterRPM.publish(flywheel.getVelocity()); // in the subsystem
+ * ...
+ * addBlock(new TorqueBlock(new TorqueWaitUntil(shooterRPM.when(rpm -> rpm > 3000))));
+ * </pre>
+ *
+ * Part of the Texas Torque Autonomous Framework.
+ *
+ * @author Justus Languell
+ */
+public final class TorqueSignal {
+    /**
+     * A trigger that fires when a published value passes its predicate.
+     */
+    public final class Trigger implements TorqueTrigger {
+        private final DoublePredicate condition;
+        private volatile boolean armed = false, fired = false;
+
+        private Trigger(final DoublePredicate condition) { this.condition = condition; }
+
+        @Override
+        public final void arm() {
+            fired = false;
+            armed = true;
+            if (published) check(value);
+        }
+
+        @Override
+        public final void disarm() {
+            armed = false;
+        }
+
+        @Override
+        public final boolean hasFired() {
+            return fired;
+        }
+
+        private final void check(final double value) {
+            if (armed && !fired && condition.test(value)) fired = true;
+        }
+    }
+
+    private final String name;
+    private final CopyOnWriteArrayList<Trigger> triggers = new CopyOnWriteArrayList<Trigger>();
+    private volatile double value = 0;
+    private volatile boolean published = false;
+
+    public TorqueSignal(final String name) { this.name = name; }
+
+    /**
+     * Publishes a new value and evaluates the armed triggers.
+     *
+     * @param value The new value.
+     */
+    public final void publish(final double value) {
+        this.value = value;
+        published = true;
+        for (final Trigger trigger : triggers) trigger.check(value);
+    }
+
+    /**
+     * Creates a trigger on this signal. Create triggers when building a
+     * sequence, not every tick, since they are kept for the life of the signal.
+     *
+     * @param condition The condition on the published value.
+     * @return The trigger.
+     */
+    public final Trigger when(final DoublePredicate condition) {
+        final Trigger trigger = new Trigger(condition);
+        triggers.add(trigger);
+        return trigger;
+    }
+
+    /**
+     * Creates a trigger that fires when the value reaches a threshold.
+     *
+     * @param threshold The threshold.
+     * @return The trigger.
+     */
+    public final Trigger above(final double threshold) { return when(v -> v >= threshold); }
+
+    /**
+     * Creates a trigger that fires when the value drops to a threshold.
+     *
+     * @param threshold The threshold.
+     * @return The trigger.
+     */
+    public final Trigger below(final double threshold) { return when(v -> v <= threshold); }
+
+    public final double get() { return value; }
+
+    public final String getName() { return name; }
+}
@@ -0,0 +1,48 @@
+package org.texastorque.torquelib.auto;
+
+import org.texastorque.torquelib.util.TorqueClock;
+
+/**
+ * Wraps a command so it ends after a timeout if it has not ended on its own.
+ *
+ * Part of the Texas Torque Autonomous Framework.
+ *
+ * @author Justus Languell
+ */
+public final class TorqueTimeout extends TorqueCommand {
+    private final TorqueCommand command;
+    private final double timeout;
+    private double start;
+
+    /**
+     * Creates a new timeout.
+     *
+     * @param command The command to wrap.
+     * @param timeout The time the command may run in seconds.
+     */
+    public TorqueTimeout(final TorqueCommand command, final double timeout) {
+        this.command = command;
+        this.timeout = timeout;
+    }
+
+    @Override
+    protected final void init() {
+        start = TorqueClock.seconds();
+        command.init();
+    }
+
+    @Override
+    protected final void continuous() {
+        command.continuous();
+    }
+
+    @Override
+    protected final boolean endCondition() {
+        return command.endCondition() || TorqueClock.seconds() - start >= timeout;
+    }
+
+    @Override
+    protected final void end() {
+        command.end();
+    }
+}
@@ -0,0 +1,323 @@
+package org.texastorque.torquelib.auto;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.trajectory.Trajectory;
+import edu.wpi.first.math.trajectory.TrajectoryConfig;
+import edu.wpi.first.math.trajectory.TrajectoryGenerator;
+import edu.wpi.first.math.trajectory.constraint.TrajectoryConstraint;
+import edu.wpi.first.wpilibj.DriverStation;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Caches generated trajectories on disk so they are not regenerated from
+ * waypoints every boot.
+ *
+ * Each trajectory is stored in its own binary file, keyed by a hash of its
+ * waypoints and config. On load the file is memory mapped and only used if
+ * the key matches, otherwise the trajectory is generated and saved again.
+ *
+ * The config is keyed by its velocities, accelerations, direction and its
+ * constraints. Constraints are keyed by their class name and the values of
+ * their final instance fields, read reflectively and followed into nested
+ * objects a few levels deep. Mutable fields are skipped, since they can hold
+ * state that changes with use. This keys the WPILib constraints reliably,
+ * such as MaxVelocityConstraint, CentripetalAccelerationConstraint,
+ * SwerveDriveKinematicsConstraint and the region constraints, and any
+ * constraint class that keeps its parameters in final fields.
+ *
+ * Lambda constraints have class names that change between runs and keep
+ * their parameters out of reach, so they are keyed by kind only and a
+ * warning is reported. For those, and for constraints configured through
+ * mutable fields, pass a constraint key that changes whenever the
+ * constraints do.
+ *
+ * File layout: magic, version, key, state count, then per state the time,
+ * velocity, acceleration, x, y, heading and curvature as doubles.
+ *
+ * Part of the Texas Torque Autonomous Framework.
+ *
+ * @author Justus Languell
+ */
+public final class TorqueTrajectoryStore {
+    private static final int MAGIC = 0x54545253; // "TTRS"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 4;
+    private static final int STATE_BYTES = 7 * 8;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L, FNV_PRIME = 0x100000001b3L;
+    // How deep constraint fields are followed, enough for a constraint holding kinematics holding module positions.
+    private static final int MAX_DEPTH = 4;
+
+    private final Path directory;
+
+    /**
+     * Creates a store in /home/lvuser/trajectories.
+     */
+    public TorqueTrajectoryStore() { this(Paths.get("/home/lvuser/trajectories")); }
+
+    /**
+     * Creates a store.
+     *
+     * @param directory The directory to keep the trajectory files in.
+     */
+    public TorqueTrajectoryStore(final Path directory) { this.directory = directory; }
+
+    /**
+     * Loads a trajectory or generates and saves it if the inputs changed.
+     *
+     * @param name      The name of the trajectory, used as the file name.
+     * @param waypoints The waypoints of the trajectory.
+     * @param config    The trajectory config.
+     * @return The trajectory.
+     */
+    public final Trajectory get(final String name, final List<Pose2d> waypoints, final TrajectoryConfig config) {
+        long key = FNV_OFFSET;
+        for (final Pose2d pose : waypoints) key = hash(key, pose);
+        return get(name, hashConstraints(hash(key, config), config),
+                   () -> TrajectoryGenerator.generateTrajectory(waypoints, config));
+    }
+
+    /**
+     * Loads a trajectory or generates and saves it if the inputs changed,
+     * keying the constraints by a caller supplied key instead of reflection.
+     *
+     * @param name          The name of the trajectory, used as the file name.
+     * @param waypoints     The waypoints of the trajectory.
+     * @param config        The trajectory config.
+     * @param constraintKey A key that changes whenever the constraints of the config do.
+     * @return The trajectory.
+     */
+    public final Trajectory get(final String name, final List<Pose2d> waypoints, final TrajectoryConfig config,
+                                final long constraintKey) {
+        long key = FNV_OFFSET;
+        for (final Pose2d pose : waypoints) key = hash(key, pose);
+        return get(name, hash(hash(key, config), constraintKey),
+                   () -> TrajectoryGenerator.generateTrajectory(waypoints, config));
+    }
+
+    /**
+     * Loads a trajectory or generates and saves it if the inputs changed.
+     *
+     * @param name     The name of the trajectory, used as the file name.
+     * @param start    The starting pose.
+     * @param interior The interior waypoints.
+     * @param end      The ending pose.
+     * @param config   The trajectory config.
+     * @return The trajectory.
+     */
+    public final Trajectory get(final String name, final Pose2d start, final List<Translation2d> interior,
+                                final Pose2d end, final TrajectoryConfig config) {
+        long key = hash(FNV_OFFSET, start);
+        for (final Translation2d translation : interior) {
+            key = hash(key, translation.getX());
+            key = hash(key, translation.getY());
+        }
+        key = hash(key, end);
+        return get(name, hashConstraints(hash(key, config), config),
+                   () -> TrajectoryGenerator.generateTrajectory(start, interior, end, config));
+    }
+
+    /**
+     * Loads a trajectory or generates and saves it if the inputs changed,
+     * keying the constraints by a caller supplied key instead of reflection.
+     *
+     * @param name          The name of the trajectory, used as the file name.
+     * @param start         The starting pose.
+     * @param interior      The interior waypoints.
+     * @param end           The ending pose.
+     * @param config        The trajectory config.
+     * @param constraintKey A key that changes whenever the constraints of the config do.
+     * @return The trajectory.
+     */
+    public final Trajectory get(final String name, final Pose2d start, final List<Translation2d> interior,
+                                final Pose2d end, final TrajectoryConfig config, final long constraintKey) {
+        long key = hash(FNV_OFFSET, start);
+        for (final Translation2d translation : interior) {
+            key = hash(key, translation.getX());
+            key = hash(key, translation.getY());
+        }
+        key = hash(key, end);
+        return get(name, hash(hash(key, config), constraintKey),
+                   () -> TrajectoryGenerator.generateTrajectory(start, interior, end, config));
+    }
+
+    private final Trajectory get(final String name, final long key, final Supplier<Trajectory> generator) {
+        final Path file = directory.resolve(name + ".traj");
+        final Trajectory loaded = load(file, key);
+        if (loaded != null) return loaded;
+
+        final long start = System.nanoTime();
+        final Trajectory trajectory = generator.get();
+        System.out.printf("TorqueTrajectoryStore: generated %s in %.1f ms\n", name,
+                          (System.nanoTime() - start) * 1e-6);
+        save(file, key, trajectory);
+        return trajectory;
+    }
+
+    /**
+     * Reads a trajectory file if it exists and matches the key.
+     *
+     * @return The trajectory, or null if it has to be generated.
+     */
+    private static final Trajectory load(final Path file, final long key) {
+        if (!Files.isRegularFile(file)) return null;
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size < HEADER_BYTES) return null;
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getLong() != key) return null;
+            final int count = buffer.getInt();
+            if (count < 0 || size != HEADER_BYTES + (long)count * STATE_BYTES) return null;
+
+            final ArrayList<Trajectory.State> states = new ArrayList<Trajectory.State>(count);
+            for (int i = 0; i < count; i++) {
+                final double time = buffer.getDouble(), velocity = buffer.getDouble(),
+                             acceleration = buffer.getDouble(), x = buffer.getDouble(), y = buffer.getDouble(),
+                             heading = buffer.getDouble(), curvature = buffer.getDouble();
+                states.add(new Trajectory.State(time, velocity, acceleration, new Pose2d(x, y, new Rotation2d(heading)),
+                                                curvature));
+            }
+            return new Trajectory(states);
+        } catch (final IOException e) {
+            DriverStation.reportWarning("TorqueTrajectoryStore: could not read " + file + ": " + e, false);
+            return null;
+        }
+    }
+
+    /**
+     * Writes a trajectory to a temporary file and moves it into place, so a
+     * reboot mid write never leaves a corrupt file behind.
+     */
+    private final void save(final Path file, final long key, final Trajectory trajectory) {
+        final List<Trajectory.State> states = trajectory.getStates();
+        final ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + states.size() * STATE_BYTES);
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(key).putInt(states.size());
+        for (final Trajectory.State state : states) {
+            buffer.putDouble(state.timeSeconds)
+                    .putDouble(state.velocityMetersPerSecond)
+                    .putDouble(state.accelerationMetersPerSecondSq)
+                    .putDouble(state.poseMeters.getX())
+                    .putDouble(state.poseMeters.getY())
+                    .putDouble(state.poseMeters.getRotation().getRadians())
+                    .putDouble(state.curvatureRadPerMeter);
+        }
+        buffer.flip();
+
+        try {
+            Files.createDirectories(directory);
+            final Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try (final FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) channel.write(buffer);
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (final IOException e) {
+            DriverStation.reportWarning("TorqueTrajectoryStore: could not save " + file + ": " + e, false);
+        }
+    }
+
+    private static final long hash(long key, final Pose2d pose) {
+        key = hash(key, pose.getX());
+        key = hash(key, pose.getY());
+        return hash(key, pose.getRotation().getRadians());
+    }
+
+    private static final long hash(long key, final TrajectoryConfig config) {
+        key = hash(key, config.getMaxVelocity());
+        key = hash(key, config.getMaxAcceleration());
+        key = hash(key, config.getStartVelocity());
+        key = hash(key, config.getEndVelocity());
+        return hash(key, config.isReversed() ? 1 : 0);
+    }
+
+    private static final long hashConstraints(long key, final TrajectoryConfig config) {
+        for (final TrajectoryConstraint constraint : config.getConstraints()) key = hash(key, constraint, MAX_DEPTH);
+        return key;
+    }
+
+    private static final long hash(long key, final long value) {
+        for (int i = 0; i < 8; i++) key = (key ^ ((value >>> (8 * i)) & 0xff)) * FNV_PRIME;
+        return key;
+    }
+
+    /**
+     * Hashes an object by its class name and the values of its final fields.
+     * Objects below the depth limit and JDK classes other than arrays,
+     * collections, boxed primitives and strings are hashed by class only.
+     */
+    private static final long hash(long key, final Object value, final int depth) {
+        if (value == null) return hash(key, "null");
+        if (value instanceof Number) return hash(key, ((Number)value).doubleValue());
+        if (value instanceof Boolean) return hash(key, (Boolean)value ? 1 : 0);
+        if (value instanceof CharSequence || value instanceof Character || value instanceof Enum)
+            return hash(key, value.toString());
+
+        final Class<?> type = value.getClass();
+        if (type.isSynthetic() || type.getName().contains("$$Lambda$")) {
+            final String message = "TorqueTrajectoryStore: lambda constraint parameters are not keyed, "
+                                   + "pass a constraint key if they change";
+            DriverStation.reportWarning(message, false);
+            return hash(key, "lambda");
+        }
+        key = hash(key, type.getName());
+        if (depth == 0) return key;
+
+        if (type.isArray()) {
+            final int length = Array.getLength(value);
+            key = hash(key, length);
+            for (int i = 0; i < length; i++) key = hash(key, Array.get(value, i), depth - 1);
+            return key;
+        }
+        if (value instanceof Iterable) {
+            for (final Object element : (Iterable<?>)value) key = hash(key, element, depth - 1);
+            return key;
+        }
+        if (type.getName().startsWith("java.")) return key;
+
+        for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
+            final Field[] fields = c.getDeclaredFields();
+            Arrays.sort(fields, Comparator.comparing(Field::getName));
+            for (final Field field : fields) {
+                final int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || !Modifier.isFinal(modifiers) || field.isSynthetic()) continue;
+                try {
+                    field.setAccessible(true);
+                    key = hash(key, field.get(value), depth - 1);
+                } catch (final RuntimeException | IllegalAccessException e) {
+                    key = hash(key, field.getName());
+                }
+            }
+        }
+        return key;
+    }
+
+    private static final long hash(long key, final String text) {
+        for (int i = 0; i < text.length(); i++) key = (key ^ text.charAt(i)) * FNV_PRIME;
+        return key;
+    }
+
+    private static final long hash(long key, final double value) {
+        long bits = Double.doubleToLongBits(value);
+        for (int i = 0; i < 8; i++, bits >>>= 8) key = (key ^ (bits & 0xff)) * FNV_PRIME;
+        return key;
+    }
+}
@@ -0,0 +1,53 @@
+package org.texastorque.torquelib.auto;
+
+import org.texastorque.torquelib.util.TorqueClock;
+
+/**
+ * A condition that is evaluated when its inputs change instead of being
+ * polled every tick, so checking if a trigger has fired is cheap.
+ *
+ * Part of the Texas Torque Autonomous Framework.
+ *
+ * @author Justus Languell
+ */
+public interface TorqueTrigger {
+    /**
+     * Starts watching for the condition and clears any earlier firing.
+     */
+    public void arm();
+
+    /**
+     * Stops watching for the condition.
+     */
+    public default void disarm() {}
+
+    /**
+     * Returns if the condition has been met since the trigger was armed.
+     *
+     * @return If the trigger has fired.
+     */
+    public boolean hasFired();
+
+    /**
+     * Creates a trigger that fires a fixed time after it is armed.
+     *
+     * @param seconds The time to wait in seconds.
+     * @return The trigger.
+     */
+    public static TorqueTrigger after(final double seconds) {
+        final long delay = Math.round(seconds * 1e9);
+        return new TorqueTrigger() {
+            private long deadline = Long.MAX_VALUE;
+
+            @Override
+            public void arm() {
+                deadline = TorqueClock.nanos() + delay;
+            }
+
+            @Override
+            public boolean hasFired() {
+                return TorqueClock.nanos() >= deadline;
+            }
+        };
+    }
+}
@@ -0,0 +1,33 @@
+package org.texastorque.torquelib.auto;
+
+/**
+ * Waits until a trigger fires. The trigger is armed when the command starts
+ * and disarmed when it ends, so the wait costs a flag read per tick.
+ *
+ * Part of the Texas Torque Autonomous Framework.
+ *
+ * @author Justus Languell
+ */
+public final class TorqueWaitUntil extends TorqueCommand {
+    private final TorqueTrigger trigger;
+
+    public TorqueWaitUntil(final TorqueTrigger trigger) { this.trigger = trigger; }
+
+    @Override
+    protected final void init() {
+        trigger.arm();
+    }
+
+    @Override
+    protected final void continuous() {}
+
+    @Override
+    protected final boolean endCondition() {
+        return trigger.hasFired();
+    }
+
+    @Override
+    protected final void end() {
+        trigger.disarm();
+    }
+}
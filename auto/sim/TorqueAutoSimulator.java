@@ -0,0 +1,218 @@
+package org.texastorque.torquelib.auto.sim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.texastorque.torquelib.auto.TorqueAutoManager;
+import org.texastorque.torquelib.auto.TorqueSequence;
+import org.texastorque.torquelib.util.TorqueClock;
+import org.texastorque.torquelib.util.TorqueHistogram;
+
+/**
+ * Runs autonomous sequences headless against simulated hardware on a
+ * virtual clock, as fast as the CPU allows.
+ *
+ * Each tick runs the sequence once, steps every plant by the loop period
+ * and advances the clock. A run reports the end pose of the drivetrain, the
+ * simulated duration and the compute cost of each tick, so autos can be
+ * checked for both behavior and performance regressions off the robot.
+ *
+ * Usage:
+ * <pre>
+ * final TorqueSimDrivetrain drivetrain = new TorqueSimDrivetrain();
+ * final TorqueAutoSimulator simulator = new TorqueAutoSimulator(drivetrain);
+ * for (final TorqueAutoSimulator.Result result : simulator.runAll(new AutoManager(drivetrain)).values())
+ *     System.out.println(result);
+ * </pre>
+ *
+ * The sequences must drive the simulated plants, for example by building
+ * subsystems on TorqueSimMotor or following paths with the drivetrain.
+ *
+ * Part of the Texas Torque Autonomous Framework.
+ *
+ * @author Justus Languell
+ */
+public final class TorqueAutoSimulator {
+    /**
+     * A piece of simulated hardware that is stepped once per tick.
+     */
+    public interface Plant {
+        /**
+         * Advances the simulation.
+         *
+         * @param dt The time step in seconds.
+         */
+        public void step(double dt);
+
+        /**
+         * Puts the plant back in its starting state before a run.
+         */
+        public default void reset() {}
+    }
+
+    /**
+     * The outcome of one simulated run.
+     */
+    public static final class Result {
+        public final String name;
+        public final boolean ended;
+        public final long ticks;
+        public final double duration, endX, endY, endHeading;
+        public final double p50Micros, p99Micros, maxMicros, totalMillis;
+
+        private Result(final String name, final boolean ended, final long ticks, final double duration,
+                       final TorqueSimDrivetrain drivetrain, final TorqueHistogram cost, final long total) {
+            this.name = name;
+            this.ended = ended;
+            this.ticks = ticks;
+            this.duration = duration;
+            this.endX = drivetrain == null ? 0 : drivetrain.getX();
+            this.endY = drivetrain == null ? 0 : drivetrain.getY();
+            this.endHeading = drivetrain == null ? 0 : drivetrain.getHeading();
+            this.p50Micros = cost.getPercentile(50) * 1e-3;
+            this.p99Micros = cost.getPercentile(99) * 1e-3;
+            this.maxMicros = cost.getMax() * 1e-3;
+            this.totalMillis = total * 1e-6;
+        }
+
+        @Override
+        public final String toString() {
+            return String.format("%s: %s after %.2f s (%d ticks), end pose (%.3f m, %.3f m, %.1f deg), "
+                                         + "tick cost p50 %.1f us p99 %.1f us max %.1f us, total %.2f ms",
+                                 name, ended ? "ended" : "timed out", duration, ticks, endX, endY,
+                                 Math.toDegrees(endHeading), p50Micros, p99Micros, maxMicros, totalMillis);
+        }
+    }
+
+    private final TorqueSimDrivetrain drivetrain;
+    private final ArrayList<Plant> plants = new ArrayList<Plant>();
+    private final TorqueHistogram cost = new TorqueHistogram();
+    private final double period;
+
+    private double timeout = 15;
+    private int warmupRuns = 0;
+    private double startX = 0, startY = 0, startHeading = 0;
+
+    /**
+     * Creates a simulator with a 50 Hz loop.
+     *
+     * @param drivetrain The simulated drivetrain, or null if there is none.
+     * @param plants     Any other simulated hardware.
+     */
+    public TorqueAutoSimulator(final TorqueSimDrivetrain drivetrain, final Plant... plants) {
+        this(.02, drivetrain, plants);
+    }
+
+    /**
+     * Creates a simulator.
+     *
+     * @param period     The loop period in seconds.
+     * @param drivetrain The simulated drivetrain, or null if there is none.
+     * @param plants     Any other simulated hardware.
+     */
+    public TorqueAutoSimulator(final double period, final TorqueSimDrivetrain drivetrain, final Plant... plants) {
+        if (period <= 0) throw new IllegalArgumentException("Loop period must be positive");
+        this.period = period;
+        this.drivetrain = drivetrain;
+        if (drivetrain != null) this.plants.add(drivetrain);
+        this.plants.addAll(Arrays.asList(plants));
+    }
+
+    /**
+     * Sets the longest a run may take before it counts as timed out. Defaults to 15 seconds.
+     *
+     * @param timeout The timeout in simulated seconds.
+     */
+    public final void setTimeout(final double timeout) { this.timeout = timeout; }
+
+    /**
+     * Sets how many unmeasured runs to do first, so the JIT is warm when the
+     * tick cost is measured. Defaults to 0.
+     *
+     * @param warmupRuns The number of warm-up runs.
+     */
+    public final void setWarmupRuns(final int warmupRuns) { this.warmupRuns = warmupRuns; }
+
+    /**
+     * Sets the pose the drivetrain starts each run at.
+     *
+     * @param x       The x position in meters.
+     * @param y       The y position in meters.
+     * @param heading The heading in radians.
+     */
+    public final void setStartPose(final double x, final double y, final double heading) {
+        startX = x;
+        startY = y;
+        startHeading = heading;
+    }
+
+    /**
+     * Runs every sequence of an auto manager.
+     *
+     * @param manager The auto manager.
+     * @return The results by sequence name, in name order.
+     */
+    public final Map<String, Result> runAll(final TorqueAutoManager manager) {
+        final LinkedHashMap<String, Result> results = new LinkedHashMap<String, Result>();
+        manager.getSequenceNames().stream().sorted().forEach(name -> results.put(name, run(manager, name)));
+        return results;
+    }
+
+    /**
+     * Runs a sequence of an auto manager.
+     *
+     * @param manager The auto manager.
+     * @param name    The name of the sequence.
+     * @return The result.
+     */
+    public final Result run(final TorqueAutoManager manager, final String name) {
+        final TorqueSequence sequence = manager.getSequence(name);
+        if (sequence == null) throw new IllegalArgumentException("No auto named " + name);
+        return run(sequence);
+    }
+
+    /**
+     * Runs a sequence until it ends or times out. The clock is virtual for
+     * the run and set back to its previous source afterwards.
+     *
+     * @param sequence The sequence.
+     * @return The result.
+     */
+    public final Result run(final TorqueSequence sequence) {
+        final TorqueClock.Source previous = TorqueClock.getSource();
+        try {
+            for (int i = 0; i < warmupRuns; i++) simulate(sequence);
+            return simulate(sequence);
+        } finally {
+            TorqueClock.setSource(previous);
+        }
+    }
+
+    private final Result simulate(final TorqueSequence sequence) {
+        final TorqueClock.Virtual clock = TorqueClock.useVirtual();
+        for (final Plant plant : plants) plant.reset();
+        if (drivetrain != null) drivetrain.reset(startX, startY, startHeading);
+        cost.reset();
+        sequence.reset();
+
+        final long maxTicks = (long)Math.ceil(timeout / period);
+        long ticks = 0, total = 0;
+        while (!sequence.hasEnded() && ticks < maxTicks) {
+            final long start = System.nanoTime();
+            sequence.run();
+            final long elapsed = System.nanoTime() - start;
+            cost.record(elapsed);
+            total += elapsed;
+
+            for (int i = 0; i < plants.size(); i++) plants.get(i).step(period);
+            clock.advanceSeconds(period);
+            ticks++;
+        }
+
+        final Result result =
+                new Result(sequence.getName(), sequence.hasEnded(), ticks, ticks * period, drivetrain, cost, total);
+        sequence.reset();
+        return result;
+    }
+}
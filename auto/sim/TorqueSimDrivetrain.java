@@ -0,0 +1,136 @@
+package org.texastorque.torquelib.auto.sim;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import org.texastorque.torquelib.auto.TorquePathCommand;
+
+/**
+ * A simulated holonomic drivetrain for headless runs. It stands in for the
+ * drive motors, the gyro and odometry: commanded field relative speeds are
+ * reached with a first order lag and integrated into the pose.
+ *
+ * It can follow a TorquePathCommand directly, using the setpoint velocity
+ * as feedforward plus proportional position and heading correction.
+ *
+ * @author Justus Languell
+ */
+public final class TorqueSimDrivetrain implements TorqueAutoSimulator.Plant, TorquePathCommand.Follower {
+    private final double maxSpeed, maxAngularSpeed, timeConstant;
+    private double kP = 2, kPHeading = 4;
+
+    private double x = 0, y = 0, heading = 0;
+    private double vx = 0, vy = 0, omega = 0;
+    private double targetVX = 0, targetVY = 0, targetOmega = 0;
+    private double distance = 0;
+
+    /**
+     * Creates a drivetrain with a 4.5 m/s top speed, 3 pi rad/s top turn rate
+     * and a 100 ms time constant.
+     */
+    public TorqueSimDrivetrain() { this(4.5, 3 * Math.PI, .1); }
+
+    /**
+     * Creates a drivetrain.
+     *
+     * @param maxSpeed        The top speed in meters per second.
+     * @param maxAngularSpeed The top turn rate in radians per second.
+     * @param timeConstant    The time to reach 63% of a new speed in seconds.
+     */
+    public TorqueSimDrivetrain(final double maxSpeed, final double maxAngularSpeed, final double timeConstant) {
+        this.maxSpeed = maxSpeed;
+        this.maxAngularSpeed = maxAngularSpeed;
+        this.timeConstant = timeConstant;
+    }
+
+    /**
+     * Sets the gains used when following a path.
+     *
+     * @param kP        The position gain in (m/s) per meter.
+     * @param kPHeading The heading gain in (rad/s) per radian.
+     */
+    public final void setGains(final double kP, final double kPHeading) {
+        this.kP = kP;
+        this.kPHeading = kPHeading;
+    }
+
+    /**
+     * Commands field relative speeds.
+     *
+     * @param vx    The x velocity in meters per second.
+     * @param vy    The y velocity in meters per second.
+     * @param omega The turn rate in radians per second.
+     */
+    public final void setSpeeds(final double vx, final double vy, final double omega) {
+        final double speed = Math.hypot(vx, vy);
+        final double scale = speed > maxSpeed ? maxSpeed / speed : 1;
+        targetVX = vx * scale;
+        targetVY = vy * scale;
+        targetOmega = Math.max(-maxAngularSpeed, Math.min(maxAngularSpeed, omega));
+    }
+
+    @Override
+    public final void follow(final double x, final double y, final double heading, final double velocity,
+                             final double acceleration) {
+        final double headingError = Math.IEEEremainder(heading - this.heading, 2 * Math.PI);
+        setSpeeds(velocity * Math.cos(heading) + kP * (x - this.x), velocity * Math.sin(heading) + kP * (y - this.y),
+                  kPHeading * headingError);
+    }
+
+    @Override
+    public final void step(final double dt) {
+        final double alpha = 1 - Math.exp(-dt / timeConstant);
+        final double nextVX = vx + (targetVX - vx) * alpha, nextVY = vy + (targetVY - vy) * alpha;
+        final double nextOmega = omega + (targetOmega - omega) * alpha;
+
+        final double dx = (vx + nextVX) * .5 * dt, dy = (vy + nextVY) * .5 * dt;
+        x += dx;
+        y += dy;
+        distance += Math.hypot(dx, dy);
+        heading = Math.IEEEremainder(heading + (omega + nextOmega) * .5 * dt, 2 * Math.PI);
+
+        vx = nextVX;
+        vy = nextVY;
+        omega = nextOmega;
+    }
+
+    @Override
+    public final void reset() {
+        reset(0, 0, 0);
+    }
+
+    /**
+     * Stops the drivetrain and places it at a pose.
+     *
+     * @param x       The x position in meters.
+     * @param y       The y position in meters.
+     * @param heading The heading in radians.
+     */
+    public final void reset(final double x, final double y, final double heading) {
+        this.x = x;
+        this.y = y;
+        this.heading = heading;
+        vx = vy = omega = targetVX = targetVY = targetOmega = distance = 0;
+    }
+
+    public final Pose2d getPose() { return new Pose2d(x, y, new Rotation2d(heading)); }
+
+    public final double getX() { return x; }
+
+    public final double getY() { return y; }
+
+    /**
+     * Returns the simulated gyro reading.
+     *
+     * @return The heading in radians.
+     */
+    public final double getHeading() { return heading; }
+
+    public final double getSpeed() { return Math.hypot(vx, vy); }
+
+    /**
+     * Returns the distance driven since the last reset.
+     *
+     * @return The distance in meters.
+     */
+    public final double getDistance() { return distance; }
+}
@@ -0,0 +1,124 @@
+package org.texastorque.torquelib.auto.sim;
+
+import org.texastorque.torquelib.motors.base.TorqueEncoderMotor;
+import org.texastorque.torquelib.motors.base.TorqueMotor;
+
+/**
+ * A simulated motor for headless runs. Velocity follows the commanded
+ * output with a first order lag and position integrates velocity.
+ *
+ * Positions are in rotations and velocities in rotations per second, so
+ * getPosition() and getVelocity() match getPositionRotations() and
+ * getVelocityRPS().
+ *
+ * @author Justus Languell
+ */
+public final class TorqueSimMotor extends TorqueMotor implements TorqueEncoderMotor, TorqueAutoSimulator.Plant {
+    private static final double NOMINAL_VOLTAGE = 12;
+
+    private final double freeSpeedRPS, timeConstant;
+    private double percent = 0, position = 0, velocity = 0, acceleration = 0;
+    private boolean inverted = false;
+
+    /**
+     * Creates a simulated Falcon 500 (6380 RPM free speed, 50 ms time constant).
+     *
+     * @param port The port, for reporting only.
+     */
+    public TorqueSimMotor(final int port) { this(port, 6380, .05); }
+
+    /**
+     * Creates a simulated motor.
+     *
+     * @param port         The port, for reporting only.
+     * @param freeSpeedRPM The speed at full output in RPM.
+     * @param timeConstant The time to reach 63% of a new speed in seconds.
+     */
+    public TorqueSimMotor(final int port, final double freeSpeedRPM, final double timeConstant) {
+        super(port);
+        this.freeSpeedRPS = freeSpeedRPM / 60;
+        this.timeConstant = timeConstant;
+    }
+
+    @Override
+    public final void step(final double dt) {
+        final double target = (inverted ? -percent : percent) * freeSpeedRPS;
+        final double next = velocity + (target - velocity) * (1 - Math.exp(-dt / timeConstant));
+        acceleration = (next - velocity) / dt;
+        position += (velocity + next) * .5 * dt;
+        velocity = next;
+    }
+
+    @Override
+    public final void reset() {
+        percent = position = velocity = acceleration = 0;
+    }
+
+    @Override
+    public final void setPercent(final double percent) {
+        this.percent = Math.max(-1, Math.min(1, percent));
+    }
+
+    @Override
+    public final void setVoltage(final double voltage) {
+        setPercent(voltage / NOMINAL_VOLTAGE);
+    }
+
+    @Override
+    public final void addFollower(final int port) {}
+
+    @Override
+    public final void addFollower(final int port, final boolean invert) {}
+
+    @Override
+    public final void invert(final boolean invert) {
+        this.inverted = invert;
+    }
+
+    public final double getPercent() { return percent; }
+
+    @Override
+    public final double getPosition() {
+        return position;
+    }
+
+    @Override
+    public final double getPositionDegrees() {
+        return position * 360;
+    }
+
+    @Override
+    public final double getPositionRotations() {
+        return position;
+    }
+
+    @Override
+    public final double getVelocity() {
+        return velocity;
+    }
+
+    @Override
+    public final double getVelocityRPS() {
+        return velocity;
+    }
+
+    @Override
+    public final double getVelocityRPM() {
+        return velocity * 60;
+    }
+
+    @Override
+    public final double getAcceleration() {
+        return acceleration;
+    }
+
+    @Override
+    public final double getAccelerationRPS() {
+        return acceleration;
+    }
+
+    @Override
+    public final double getAccelerationRPM() {
+        return acceleration * 60;
+    }
+}
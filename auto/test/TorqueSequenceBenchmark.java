@@ -0,0 +1,84 @@
+package org.texastorque.torquelib.auto.test;
+
+import java.lang.management.ManagementFactory;
+import org.texastorque.torquelib.auto.TorqueBlock;
+import org.texastorque.torquelib.auto.TorqueCommand;
+import org.texastorque.torquelib.auto.TorqueSequence;
+
+/**
+ * Measures the per tick cost and allocation of TorqueSequence.run().
+ */
+public final class TorqueSequenceBenchmark {
+    private static final int BLOCKS = 12, COMMANDS_PER_BLOCK = 4, TICKS_PER_COMMAND = 50;
+    private static final int WARMUP_RUNS = 2000, MEASURED_RUNS = 2000;
+
+    private static final class CountCommand extends TorqueCommand {
+        private final int ticks;
+        private int count;
+
+        private CountCommand(final int ticks) { this.ticks = ticks; }
+
+        @Override
+        protected void init() {
+            count = 0;
+        }
+
+        @Override
+        protected void continuous() {
+            count++;
+        }
+
+        @Override
+        protected boolean endCondition() {
+            return count >= ticks;
+        }
+
+        @Override
+        protected void end() {}
+    }
+
+    private static final class BenchmarkSequence extends TorqueSequence {
+        private BenchmarkSequence() {
+            super("Benchmark");
+            init();
+        }
+
+        @Override
+        protected void init() {
+            for (int b = 0; b < BLOCKS; b++) {
+                final TorqueBlock block = new TorqueBlock();
+                for (int c = 0; c < COMMANDS_PER_BLOCK; c++) block.addCommand(new CountCommand(TICKS_PER_COMMAND + c));
+                addBlock(block);
+            }
+        }
+    }
+
+    private static long runToEnd(final TorqueSequence sequence) {
+        sequence.reset();
+        long ticks = 0;
+        while (!sequence.hasEnded()) {
+            sequence.run();
+            ticks++;
+        }
+        return ticks;
+    }
+
+    public static void main(final String[] args) {
+        final TorqueSequence sequence = new BenchmarkSequence();
+        final com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+        final long thread = Thread.currentThread().getId();
+
+        for (int i = 0; i < WARMUP_RUNS; i++) runToEnd(sequence);
+
+        long ticks = 0;
+        final long bytesBefore = threads.getThreadAllocatedBytes(thread);
+        final long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_RUNS; i++) ticks += runToEnd(sequence);
+        final long elapsed = System.nanoTime() - start;
+        final long bytes = threads.getThreadAllocatedBytes(thread) - bytesBefore;
+
+        System.out.printf("%d ticks, %.1f ns/tick, %.3f bytes/tick\n", ticks, (double)elapsed / ticks,
+                          (double)bytes / ticks);
+    }
+}
@@ -6,8 +6,6 @@ import edu.wpi.first.hal.HAL;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj.livewindow.LiveWindow;
-import java.util.Timer;
-import java.util.TimerTask;
 
 /**
  * A modified version of the WPILIBJ IterativeRobot template that uses two
@@ -16,8 +14,7 @@ import java.util.TimerTask;
  * CPU usage on the roboRio may be higher than when using the regular
  * IterativeRobot base class, but should not be a problem.
  *
- * @apiNote This needs to be updated - justus
- * @deprecated A replacement will be written soon.
+ * @deprecated Replaced by TorqueRobotBase.
  *
  * @author Texas Torque.
  */
@@ -30,9 +27,27 @@ public abstract class TorqueIterative extends RobotBase {
     private volatile boolean m_testInitialized;
 
     Thread periodicThread;
-    Timer continousTimer;
     // period is 1 / frequency
     double continuousPeriod = 1.0 / 80.0;
+    final TorqueLoopScheduler continuousScheduler;
+
+    final TorqueLoopMetrics periodicMetrics = new TorqueLoopMetrics("Periodic", 1.0 / 50.0);
+    final TorqueLoopMetrics continuousMetrics = new TorqueLoopMetrics("Continuous", continuousPeriod);
+
+    private final int DISABLED_INIT = periodicMetrics.addPhase("disabledInit");
+    private final int AUTO_INIT = periodicMetrics.addPhase("autoInit");
+    private final int TELEOP_INIT = periodicMetrics.addPhase("teleopInit");
+    private final int TEST_INIT = periodicMetrics.addPhase("testInit");
+    private final int DISABLED_PERIODIC = periodicMetrics.addPhase("disabledPeriodic");
+    private final int AUTO_PERIODIC = periodicMetrics.addPhase("autoPeriodic");
+    private final int TELEOP_PERIODIC = periodicMetrics.addPhase("teleopPeriodic");
+    private final int TEST_PERIODIC = periodicMetrics.addPhase("testPeriodic");
+
+    private final int DISABLED_CONTINUOUS = continuousMetrics.addPhase("disabledContinuous");
+    private final int AUTO_CONTINUOUS = continuousMetrics.addPhase("autoContinuous");
+    private final int TELEOP_CONTINUOUS = continuousMetrics.addPhase("teleopContinuous");
+    private final int TEST_CONTINUOUS = continuousMetrics.addPhase("testContinuous");
+    private final int ALWAYS_CONTINUOUS = continuousMetrics.addPhase("alwaysContinuous");
 
     /**
      * Create a new iterative robot.
@@ -42,6 +57,8 @@ public abstract class TorqueIterative extends RobotBase {
         m_autoInitialized = false;
         m_teleopInitialized = false;
         m_testInitialized = false;
+
+        continuousScheduler = new TorqueLoopScheduler("Continuous", continuousPeriod, new Continuous());
     }
 
     /**
@@ -68,9 +85,8 @@ public abstract class TorqueIterative extends RobotBase {
         periodicThread = new Thread(new Periodic());
         periodicThread.start();
 
-        // Shcedule the second thread to run at the period specified above.
-        continousTimer = new Timer();
-        continousTimer.scheduleAtFixedRate(new Continuous(), 0, (long)(1000 * continuousPeriod));
+        // Schedule the second thread to run at the period specified above.
+        continuousScheduler.start();
 
         // Prevent return from startcompetition
         while (true) {
@@ -95,7 +111,9 @@ public abstract class TorqueIterative extends RobotBase {
                 if (isDisabled()) {
                     if (!m_disabledInitialized) {
                         LiveWindow.setEnabled(false);
+                        final long start = periodicMetrics.start();
                         disabledInit();
+                        periodicMetrics.record(DISABLED_INIT, start);
 
                         m_disabledInitialized = true;
                         m_autoInitialized = false;
@@ -104,12 +122,18 @@ public abstract class TorqueIterative extends RobotBase {
                     }
                     if (nextPeriodReady()) {
                         HAL.observeUserProgramDisabled();
+                        periodicMetrics.startTick();
+                        final long start = periodicMetrics.start();
                         disabledPeriodic();
+                        periodicMetrics.record(DISABLED_PERIODIC, start);
+                        periodicMetrics.endTick();
                     }
                 } else if (isTest()) {
                     if (!m_testInitialized) {
                         LiveWindow.setEnabled(true);
+                        final long start = periodicMetrics.start();
                         testInit();
+                        periodicMetrics.record(TEST_INIT, start);
 
                         m_testInitialized = true;
                         m_autoInitialized = false;
@@ -118,13 +142,19 @@ public abstract class TorqueIterative extends RobotBase {
                     }
                     if (nextPeriodReady()) {
                         HAL.observeUserProgramTest();
+                        periodicMetrics.startTick();
+                        final long start = periodicMetrics.start();
                         testPeriodic();
+                        periodicMetrics.record(TEST_PERIODIC, start);
+                        periodicMetrics.endTick();
                     }
                 } else if (isAutonomous()) {
                     if (DriverStation.isEnabled() && !m_autoInitialized) {
 
                         LiveWindow.setEnabled(false);
+                        final long start = periodicMetrics.start();
                         autoInit();
+                        periodicMetrics.record(AUTO_INIT, start);
 
                         m_autoInitialized = true;
                         m_testInitialized = false;
@@ -133,12 +163,18 @@ public abstract class TorqueIterative extends RobotBase {
                     }
                     if (nextPeriodReady()) {
                         HAL.observeUserProgramAutonomous();
+                        periodicMetrics.startTick();
+                        final long start = periodicMetrics.start();
                         autoPeriodic();
+                        periodicMetrics.record(AUTO_PERIODIC, start);
+                        periodicMetrics.endTick();
                     }
                 } else {
                     if (!m_teleopInitialized) {
                         LiveWindow.setEnabled(false);
+                        final long start = periodicMetrics.start();
                         teleopInit();
+                        periodicMetrics.record(TELEOP_INIT, start);
 
                         m_teleopInitialized = true;
                         m_testInitialized = false;
@@ -147,7 +183,11 @@ public abstract class TorqueIterative extends RobotBase {
                     }
                     if (nextPeriodReady()) {
                         HAL.observeUserProgramTeleop();
+                        periodicMetrics.startTick();
+                        final long start = periodicMetrics.start();
                         teleopPeriodic();
+                        periodicMetrics.record(TELEOP_PERIODIC, start);
+                        periodicMetrics.endTick();
                     }
                 }
                 DriverStation.waitForData();
@@ -159,33 +199,71 @@ public abstract class TorqueIterative extends RobotBase {
      * This class provides an extra execution thread to take advantage of the two
      * cores of the roboRIO.
      *
-     * It is scheduled to run at 100hz.
+     * It is scheduled to run at 80hz.
      */
-    private class Continuous extends TimerTask {
+    private class Continuous implements Runnable {
 
         @Override
         public void run() {
+            continuousMetrics.startTick();
+            long start;
             if (isAutonomous() && m_autoInitialized) {
+                start = continuousMetrics.start();
                 autoContinuous();
+                continuousMetrics.record(AUTO_CONTINUOUS, start);
+                start = continuousMetrics.start();
                 alwaysContinuous();
+                continuousMetrics.record(ALWAYS_CONTINUOUS, start);
             } else if (isTeleop() && m_teleopInitialized) {
+                start = continuousMetrics.start();
                 teleopContinuous();
+                continuousMetrics.record(TELEOP_CONTINUOUS, start);
+                start = continuousMetrics.start();
                 alwaysContinuous();
+                continuousMetrics.record(ALWAYS_CONTINUOUS, start);
             } else if (isDisabled() && m_disabledInitialized) {
+                start = continuousMetrics.start();
                 disabledContinuous();
+                continuousMetrics.record(DISABLED_CONTINUOUS, start);
+                start = continuousMetrics.start();
                 alwaysContinuous();
+                continuousMetrics.record(ALWAYS_CONTINUOUS, start);
             } else if (isTest() && m_testInitialized) {
+                start = continuousMetrics.start();
                 testContinuous();
+                continuousMetrics.record(TEST_CONTINUOUS, start);
+                start = continuousMetrics.start();
                 alwaysContinuous();
-            } else if (isDisabled() && m_disabledInitialized) {
-                disabledContinuous();
-                alwaysContinuous();
+                continuousMetrics.record(ALWAYS_CONTINUOUS, start);
             }
+            continuousMetrics.endTick();
         }
     }
 
     private boolean nextPeriodReady() { return DriverStation.isNewControlData(); }
 
+    /**
+     * Returns the scheduler driving the continuous thread, so the overrun
+     * policy can be set and tick lateness can be read.
+     *
+     * @return The continuous loop scheduler.
+     */
+    public final TorqueLoopScheduler getContinuousScheduler() { return continuousScheduler; }
+
+    /**
+     * Returns the timing metrics of the periodic thread.
+     *
+     * @return The periodic loop metrics.
+     */
+    public final TorqueLoopMetrics getPeriodicMetrics() { return periodicMetrics; }
+
+    /**
+     * Returns the timing metrics of the continuous thread.
+     *
+     * @return The continuous loop metrics.
+     */
+    public final TorqueLoopMetrics getContinuousMetrics() { return continuousMetrics; }
+
     /* ----------- Overridable continuous code ----------------- */
     private boolean tpcFirstRun = true;
 
@@ -0,0 +1,161 @@
+package org.texastorque.torquelib.base;
+
+import java.util.ArrayList;
+import org.texastorque.torquelib.log.TorqueTelemetry;
+import org.texastorque.torquelib.util.TorqueHistogram;
+
+/**
+ * Timing instrumentation for a single robot loop thread.
+ *
+ * Records the execution time of each registered phase (callback), the
+ * jitter between ticks, the total time of each tick and how many ticks
+ * overran the period. Snapshots (p50/p99/max in milliseconds) are published
+ * to SmartDashboard through TorqueTelemetry at a low rate and the histograms
+ * are then cleared, so each snapshot describes the last publish window.
+ *
+ * Phases must be added before the loop starts. All other methods must be
+ * called from the loop thread that owns this object.
+ *
+ * Execution time is measured on the real clock, see TorqueClock.
+ *
+ * @author Justus Languell
+ */
+public final class TorqueLoopMetrics {
+    private static final double PUBLISH_PERIOD = 1;
+
+    private final String name;
+    private final long periodNanos;
+
+    private final ArrayList<String> phaseNames = new ArrayList<String>();
+    private TorqueHistogram[] phases = new TorqueHistogram[0];
+    private int[][] phaseKeys = new int[0][];
+
+    private final TorqueHistogram jitter = new TorqueHistogram();
+    private final TorqueHistogram tickTime = new TorqueHistogram();
+    private final int[] jitterKeys, tickKeys;
+    private final int overrunKey;
+
+    private long tickStart = -1, lastPublish = System.nanoTime(), overruns = 0;
+    private boolean enabled = true;
+
+    /**
+     * Creates a new set of loop metrics.
+     *
+     * @param name          The name of the loop, used as the SmartDashboard prefix.
+     * @param periodSeconds The target period of the loop in seconds.
+     */
+    public TorqueLoopMetrics(final String name, final double periodSeconds) {
+        this.name = name;
+        this.periodNanos = Math.round(periodSeconds * 1e9);
+        jitterKeys = keys("Jitter");
+        tickKeys = keys("Tick");
+        overrunKey = TorqueTelemetry.key(String.format("%s/Overruns", name));
+    }
+
+    /**
+     * Registers a phase to be timed.
+     *
+     * @param phaseName The name of the phase.
+     * @return The phase id to pass to record.
+     */
+    public final synchronized int addPhase(final String phaseName) {
+        final int id = phaseNames.indexOf(phaseName);
+        if (id >= 0) return id;
+        phaseNames.add(phaseName);
+
+        final int n = phaseNames.size();
+        final TorqueHistogram[] newPhases = new TorqueHistogram[n];
+        final int[][] newKeys = new int[n][];
+        System.arraycopy(phases, 0, newPhases, 0, n - 1);
+        System.arraycopy(phaseKeys, 0, newKeys, 0, n - 1);
+        newPhases[n - 1] = new TorqueHistogram();
+        newKeys[n - 1] = keys(phaseName);
+        phases = newPhases;
+        phaseKeys = newKeys;
+        return n - 1;
+    }
+
+    private final int[] keys(final String metric) {
+        return new int[] {TorqueTelemetry.key(String.format("%s/%s p50 ms", name, metric)),
+                          TorqueTelemetry.key(String.format("%s/%s p99 ms", name, metric)),
+                          TorqueTelemetry.key(String.format("%s/%s max ms", name, metric))};
+    }
+
+    /**
+     * Enable or disable recording and publishing.
+     *
+     * @param enabled To record or not to record.
+     */
+    public final void setEnabled(final boolean enabled) { this.enabled = enabled; }
+
+    /**
+     * Marks the start of a tick and records the jitter against the target period.
+     */
+    public final void startTick() {
+        if (!enabled) return;
+        final long now = System.nanoTime();
+        if (tickStart >= 0) jitter.record(Math.abs(now - tickStart - periodNanos));
+        tickStart = now;
+    }
+
+    /**
+     * Marks the end of a tick, counts overruns and publishes if a publish is due.
+     */
+    public final void endTick() {
+        if (!enabled || tickStart < 0) return;
+        final long now = System.nanoTime();
+        final long elapsed = now - tickStart;
+        tickTime.record(elapsed);
+        if (elapsed > periodNanos) overruns++;
+        if (now - lastPublish >= PUBLISH_PERIOD * 1e9) {
+            publish();
+            lastPublish = now;
+        }
+    }
+
+    /**
+     * Returns a timestamp to start timing a phase.
+     *
+     * @return The current time in nanoseconds.
+     */
+    public final long start() { return System.nanoTime(); }
+
+    /**
+     * Records the time since start for a phase.
+     *
+     * @param phase The phase id returned by addPhase.
+     * @param start The timestamp returned by start.
+     */
+    public final void record(final int phase, final long start) {
+        if (enabled) phases[phase].record(System.nanoTime() - start);
+    }
+
+    /**
+     * Returns the histogram of a phase for reading.
+     *
+     * @param phase The phase id returned by addPhase.
+     * @return The phase histogram.
+     */
+    public final TorqueHistogram getPhase(final int phase) { return phases[phase]; }
+
+    public final TorqueHistogram getJitter() { return jitter; }
+
+    public final TorqueHistogram getTickTime() { return tickTime; }
+
+    public final long getOverrunCount() { return overruns; }
+
+    private final void publish() {
+        for (int i = 0; i < phases.length; i++) publish(phaseKeys[i], phases[i]);
+        publish(jitterKeys, jitter);
+        publish(tickKeys, tickTime);
+        TorqueTelemetry.putNumber(overrunKey, overruns);
+    }
+
+    private static final void publish(final int[] keys, final TorqueHistogram histogram) {
+        if (histogram.getCount() == 0) return;
+        TorqueTelemetry.putNumber(keys[0], histogram.getPercentile(50) * 1e-6);
+        TorqueTelemetry.putNumber(keys[1], histogram.getPercentile(99) * 1e-6);
+        TorqueTelemetry.putNumber(keys[2], histogram.getMax() * 1e-6);
+        histogram.reset();
+    }
+}
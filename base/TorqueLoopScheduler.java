@@ -0,0 +1,176 @@
+package org.texastorque.torquelib.base;
+
+import java.util.concurrent.locks.LockSupport;
+import org.texastorque.torquelib.util.TorqueClock;
+
+/**
+ * A fixed rate loop scheduler with nanosecond deadlines.
+ *
+ * Ticks are placed on an absolute timeline, so a late tick does not push
+ * back every tick after it like java.util.Timer does. The thread parks until
+ * just before each deadline and spins for the remainder to cut wakeup jitter.
+ *
+ * Time is read from TorqueClock, so with a virtual clock the loop runs
+ * back to back as fast as the CPU allows.
+ *
+ * @author Justus Languell
+ */
+public final class TorqueLoopScheduler {
+    /**
+     * What the scheduler does when a tick runs past the next deadline.
+     */
+    public enum OverrunPolicy {
+        /** Drop the missed ticks and wait for the next deadline on the schedule. */
+        SKIP,
+        /** Run the missed ticks back to back until the schedule is caught up. */
+        CATCH_UP
+    }
+
+    // The most ticks CATCH_UP will run back to back before giving up and realigning.
+    private static final long MAX_CATCH_UP_TICKS = 4;
+
+    private final String name;
+    private final Runnable task;
+    private final long periodNanos;
+
+    private volatile OverrunPolicy policy = OverrunPolicy.SKIP;
+    private volatile boolean running = false;
+    // The current loop thread. A thread left over from before a restart sees it changed and exits.
+    private volatile Thread thread;
+    private Thread stopping = null;
+
+    private volatile long lastLatenessNanos = 0, maxLatenessNanos = 0;
+    private volatile long ticks = 0, overruns = 0, skipped = 0;
+
+    /**
+     * Creates a new scheduler. The loop thread is not started until start() is called.
+     *
+     * @param name          The name of the loop thread.
+     * @param periodSeconds The period between ticks in seconds.
+     * @param task          The task to run every tick.
+     */
+    public TorqueLoopScheduler(final String name, final double periodSeconds, final Runnable task) {
+        if (periodSeconds <= 0) throw new IllegalArgumentException("Loop period must be positive");
+        this.name = name;
+        this.task = task;
+        this.periodNanos = Math.round(periodSeconds * 1e9);
+    }
+
+    /**
+     * Starts the loop thread at max priority. If the loop was just stopped,
+     * waits for its last tick to finish first so the task never overlaps.
+     */
+    public final synchronized void start() {
+        if (running) return;
+        if (stopping != null && stopping != Thread.currentThread()) {
+            boolean interrupted = false;
+            while (stopping.isAlive()) {
+                try {
+                    stopping.join();
+                } catch (final InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+        stopping = null;
+        running = true;
+        thread = new Thread(this::loop, name);
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MAX_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * Stops the loop thread after the current tick finishes.
+     */
+    public final synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            stopping = thread;
+        }
+        thread = null;
+    }
+
+    private final boolean isCurrent() { return running && thread == Thread.currentThread(); }
+
+    private final void loop() {
+        long deadline = TorqueClock.nanos();
+        while (isCurrent()) {
+            TorqueClock.sleepUntil(deadline);
+            if (!isCurrent()) break;
+
+            final long lateness = TorqueClock.nanos() - deadline;
+            lastLatenessNanos = lateness;
+            if (lateness > maxLatenessNanos) maxLatenessNanos = lateness;
+
+            task.run();
+            ticks++;
+
+            deadline += periodNanos;
+            final long behind = TorqueClock.nanos() - deadline;
+            if (behind <= 0) continue;
+
+            overruns++;
+            final long missed = behind / periodNanos + 1;
+            if (policy == OverrunPolicy.SKIP || missed > MAX_CATCH_UP_TICKS) {
+                skipped += missed;
+                deadline += missed * periodNanos;
+            }
+        }
+    }
+
+    /**
+     * Sets the overrun policy. Defaults to SKIP.
+     *
+     * @param policy The new overrun policy.
+     */
+    public final void setOverrunPolicy(final OverrunPolicy policy) { this.policy = policy; }
+
+    public final OverrunPolicy getOverrunPolicy() { return policy; }
+
+    public final boolean isRunning() { return running; }
+
+    /**
+     * Returns the period of the loop.
+     *
+     * @return The loop period in nanoseconds.
+     */
+    public final long getPeriodNanos() { return periodNanos; }
+
+    /**
+     * Returns how late the most recent tick started.
+     *
+     * @return The lateness of the last tick in nanoseconds.
+     */
+    public final long getLastLatenessNanos() { return lastLatenessNanos; }
+
+    /**
+     * Returns the latest any tick has started since the scheduler was created.
+     *
+     * @return The maximum lateness in nanoseconds.
+     */
+    public final long getMaxLatenessNanos() { return maxLatenessNanos; }
+
+    /**
+     * Returns the number of ticks that have run.
+     *
+     * @return The tick count.
+     */
+    public final long getTickCount() { return ticks; }
+
+    /**
+     * Returns the number of ticks that ran past the next deadline.
+     *
+     * @return The overrun count.
+     */
+    public final long getOverrunCount() { return overruns; }
+
+    /**
+     * Returns the number of deadlines dropped because of overruns.
+     *
+     * @return The skipped tick count.
+     */
+    public final long getSkippedCount() { return skipped; }
+}
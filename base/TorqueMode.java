@@ -0,0 +1,27 @@
+package org.texastorque.torquelib.base;
+
+import edu.wpi.first.wpilibj.DriverStation;
+
+/**
+ * The operating modes of the robot.
+ *
+ * @author Justus Languell
+ */
+public enum TorqueMode {
+    DISABLED,
+    AUTO,
+    TELEOP,
+    TEST;
+
+    /**
+     * Reads the current mode from the driver station.
+     *
+     * @return The mode the robot is in.
+     */
+    public static final TorqueMode fromDriverStation() {
+        if (DriverStation.isDisabled()) return DISABLED;
+        if (DriverStation.isTest()) return TEST;
+        if (DriverStation.isAutonomous()) return AUTO;
+        return TELEOP;
+    }
+}
@@ -0,0 +1,250 @@
+package org.texastorque.torquelib.base;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Updates subsystems in parallel while respecting declared dependencies.
+ *
+ * Each subsystem declares which subsystems it reads from when it is added.
+ * A subsystem is only updated once everything it reads from has updated
+ * this tick, and independent subsystems are updated concurrently on worker
+ * threads and the calling thread. run() returns once every subsystem has
+ * updated, acting as a barrier at the end of the tick.
+ *
+ * Parallel execution can be turned off, in which case subsystems are updated
+ * on the calling thread in a fixed dependency order, which is useful for
+ * debugging.
+ *
+ * @author Justus Languell
+ */
+public final class TorqueParallelExecutor {
+    private final ArrayList<TorqueSubsystem> subsystems = new ArrayList<TorqueSubsystem>();
+    private final ArrayList<TorqueSubsystem[]> reads = new ArrayList<TorqueSubsystem[]>();
+
+    // Compiled graph, in topological order.
+    private TorqueSubsystem[] order = new TorqueSubsystem[0];
+    private int[][] dependents = new int[0][];
+    private int[] dependencies = new int[0];
+    private int[] roots = new int[0];
+    private boolean compiled = true;
+
+    private final int workerCount;
+    private final Thread[] workers;
+    // Bumped to stop the current workers, each worker exits once it sees a newer generation.
+    private volatile int generation = 0;
+    private ArrayBlockingQueue<Integer> ready = new ArrayBlockingQueue<Integer>(1);
+    private AtomicIntegerArray remaining = new AtomicIntegerArray(0);
+    private final AtomicInteger completed = new AtomicInteger();
+    private volatile Thread caller;
+    private volatile TorqueMode mode = TorqueMode.DISABLED;
+    private volatile Throwable error;
+
+    private boolean parallel = true;
+
+    /**
+     * Creates an executor with one worker thread, using both cores of the
+     * roboRIO together with the calling thread.
+     */
+    public TorqueParallelExecutor() { this(1); }
+
+    /**
+     * Creates an executor.
+     *
+     * @param workerCount The number of worker threads to use alongside the calling thread.
+     */
+    public TorqueParallelExecutor(final int workerCount) {
+        if (workerCount < 1) throw new IllegalArgumentException("Need at least one worker");
+        this.workerCount = workerCount;
+        this.workers = new Thread[workerCount];
+    }
+
+    /**
+     * Adds a subsystem.
+     *
+     * @param subsystem The subsystem.
+     * @param readsFrom The subsystems whose output this subsystem reads, they
+     *                  will always be updated first.
+     */
+    public final synchronized void add(final TorqueSubsystem subsystem, final TorqueSubsystem... readsFrom) {
+        if (subsystems.contains(subsystem)) throw new IllegalArgumentException("Subsystem added twice");
+        subsystems.add(subsystem);
+        reads.add(readsFrom);
+        compiled = false;
+    }
+
+    /**
+     * Enable or disable parallel execution. When disabled every subsystem
+     * is updated on the calling thread in dependency order.
+     *
+     * @param parallel To run in parallel or not.
+     */
+    public final void setParallel(final boolean parallel) { this.parallel = parallel; }
+
+    public final boolean isParallel() { return parallel; }
+
+    /**
+     * Initializes every subsystem for a mode, on the calling thread in dependency order.
+     *
+     * @param mode The mode to initialize.
+     */
+    public final void init(final TorqueMode mode) {
+        compile();
+        for (final TorqueSubsystem subsystem : order) subsystem.init(mode);
+    }
+
+    /**
+     * Updates every subsystem once and waits for all of them to finish.
+     * Exceptions thrown by a subsystem are rethrown here after the tick.
+     *
+     * @param mode The current mode.
+     */
+    public final void run(final TorqueMode mode) {
+        compile();
+
+        if (!parallel) {
+            for (final TorqueSubsystem subsystem : order) subsystem.update(mode);
+            return;
+        }
+
+        startWorkers();
+        this.mode = mode;
+        this.caller = Thread.currentThread();
+        error = null;
+        completed.set(0);
+        for (int i = 0; i < dependencies.length; i++) remaining.set(i, dependencies[i]);
+        for (final int root : roots) ready.offer(root);
+
+        // Help out on the calling thread, then wait for the workers to finish.
+        final int count = order.length;
+        while (completed.get() < count) {
+            final Integer next = ready.poll();
+            if (next != null)
+                execute(next);
+            else
+                LockSupport.park(this);
+        }
+
+        final Throwable e = error;
+        if (e instanceof RuntimeException) throw (RuntimeException)e;
+        if (e instanceof Error) throw (Error)e;
+    }
+
+    private final void execute(final int index) {
+        try {
+            order[index].update(mode);
+        } catch (final Throwable e) {
+            if (error == null) error = e;
+        } finally {
+            for (final int dependent : dependents[index]) {
+                if (remaining.decrementAndGet(dependent) == 0) {
+                    ready.offer(dependent);
+                    LockSupport.unpark(caller);
+                }
+            }
+            if (completed.incrementAndGet() == order.length) LockSupport.unpark(caller);
+        }
+    }
+
+    private final void workerLoop(final int workerGeneration, final ArrayBlockingQueue<Integer> queue) {
+        while (generation == workerGeneration) {
+            try {
+                execute(queue.take());
+            } catch (final InterruptedException e) {
+                // Woken by shutdown, the loop condition decides whether to exit.
+            }
+        }
+    }
+
+    private final synchronized void startWorkers() {
+        if (workers[0] != null) return;
+        final int workerGeneration = generation;
+        final ArrayBlockingQueue<Integer> queue = ready;
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = new Thread(() -> workerLoop(workerGeneration, queue), "TorqueParallelExecutor-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+    }
+
+    /**
+     * Stops the worker threads. The executor can still be used serially or
+     * restarted by the next parallel run.
+     */
+    public final synchronized void shutdown() {
+        if (workers[0] == null) return;
+        generation++;
+        for (int i = 0; i < workerCount; i++) {
+            workers[i].interrupt();
+            workers[i] = null;
+        }
+    }
+
+    /**
+     * Builds the dependency graph into flat arrays in topological order.
+     */
+    private final synchronized void compile() {
+        if (compiled) return;
+        final int n = subsystems.size();
+
+        final IdentityHashMap<TorqueSubsystem, Integer> indices = new IdentityHashMap<TorqueSubsystem, Integer>();
+        for (int i = 0; i < n; i++) indices.put(subsystems.get(i), i);
+
+        final int[] inDegree = new int[n];
+        final ArrayList<ArrayList<Integer>> edges = new ArrayList<ArrayList<Integer>>();
+        for (int i = 0; i < n; i++) edges.add(new ArrayList<Integer>());
+        for (int i = 0; i < n; i++) {
+            for (final TorqueSubsystem dependency : reads.get(i)) {
+                final Integer from = indices.get(dependency);
+                if (from == null)
+                    throw new IllegalStateException("A subsystem reads from a subsystem that was never added");
+                edges.get(from).add(i);
+                inDegree[i]++;
+            }
+        }
+
+        // Kahn's algorithm, keeping insertion order for the serial fallback.
+        final int[] position = new int[n];
+        final int[] queue = new int[n];
+        final int[] degree = inDegree.clone();
+        int head = 0, tail = 0;
+        for (int i = 0; i < n; i++)
+            if (degree[i] == 0) queue[tail++] = i;
+        while (head < tail) {
+            final int i = queue[head++];
+            for (final int j : edges.get(i))
+                if (--degree[j] == 0) queue[tail++] = j;
+        }
+        if (tail != n) throw new IllegalStateException("Subsystem dependencies contain a cycle");
+        for (int p = 0; p < n; p++) position[queue[p]] = p;
+
+        order = new TorqueSubsystem[n];
+        dependents = new int[n][];
+        dependencies = new int[n];
+        int rootCount = 0;
+        for (int p = 0; p < n; p++) {
+            final int i = queue[p];
+            order[p] = subsystems.get(i);
+            dependencies[p] = inDegree[i];
+            if (inDegree[i] == 0) rootCount++;
+            final ArrayList<Integer> out = edges.get(i);
+            dependents[p] = new int[out.size()];
+            for (int k = 0; k < out.size(); k++) dependents[p][k] = position[out.get(k)];
+        }
+        roots = new int[rootCount];
+        for (int p = 0, r = 0; p < n; p++)
+            if (dependencies[p] == 0) roots[r++] = p;
+
+        // Workers are bound to the old queue, so restart them on the new one.
+        shutdown();
+
+        // Integer indices below 128 are cached, so queueing does not allocate.
+        ready = new ArrayBlockingQueue<Integer>(Math.max(1, n + workerCount));
+        remaining = new AtomicIntegerArray(n);
+        compiled = true;
+    }
+}
@@ -0,0 +1,247 @@
+package org.texastorque.torquelib.base;
+
+import edu.wpi.first.hal.FRCNetComm.tInstances;
+import edu.wpi.first.hal.FRCNetComm.tResourceType;
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.livewindow.LiveWindow;
+import org.texastorque.torquelib.util.TorqueClock;
+
+/**
+ * The Texas Torque robot base class, replacing TorqueIterative.
+ *
+ * Runs two loops:
+ * - The periodic loop runs on the main thread and blocks on driver station
+ *   data, so it runs once per control packet (about 50hz). With a virtual
+ *   TorqueClock it instead runs every 20ms of clock time, so the clock
+ *   drives both loops.
+ * - The continuous loop runs on its own thread from a TorqueLoopScheduler
+ *   (80hz by default) to take advantage of the second core of the roboRIO.
+ *
+ * Mode transitions happen on the periodic thread exactly once per change of
+ * mode, and the continuous loop never runs while an init method is running.
+ * Every callback is empty by default, so callbacks that are not overridden
+ * cost nothing.
+ *
+ * Both loops are timed with TorqueLoopMetrics.
+ *
+ * @author Justus Languell
+ */
+public abstract class TorqueRobotBase extends RobotBase {
+    private static final double DATA_TIMEOUT = .1, PERIODIC_PERIOD = 1.0 / 50.0;
+    private static final long PERIODIC_PERIOD_NANOS = Math.round(PERIODIC_PERIOD * 1e9);
+
+    private final Object transitionLock = new Object();
+    private volatile TorqueMode mode = null;
+    private volatile boolean running = false;
+    private volatile Throwable continuousError = null;
+
+    private final TorqueLoopScheduler continuousScheduler;
+    private final TorqueLoopMetrics periodicMetrics, continuousMetrics;
+    private final int[] initPhases, periodicPhases, continuousPhases;
+    private final int alwaysContinuousPhase;
+
+    /**
+     * Creates a new robot with an 80hz continuous loop.
+     */
+    public TorqueRobotBase() { this(1.0 / 80.0); }
+
+    /**
+     * Creates a new robot.
+     *
+     * @param continuousPeriod The period of the continuous loop in seconds.
+     */
+    public TorqueRobotBase(final double continuousPeriod) {
+        continuousScheduler = new TorqueLoopScheduler("Continuous", continuousPeriod, this::continuousTick);
+        periodicMetrics = new TorqueLoopMetrics("Periodic", PERIODIC_PERIOD);
+        continuousMetrics = new TorqueLoopMetrics("Continuous", continuousPeriod);
+
+        final TorqueMode[] modes = TorqueMode.values();
+        initPhases = new int[modes.length];
+        periodicPhases = new int[modes.length];
+        continuousPhases = new int[modes.length];
+        for (final TorqueMode m : modes) {
+            final String name = m.name().toLowerCase();
+            initPhases[m.ordinal()] = periodicMetrics.addPhase(name + "Init");
+            periodicPhases[m.ordinal()] = periodicMetrics.addPhase(name + "Periodic");
+            continuousPhases[m.ordinal()] = continuousMetrics.addPhase(name + "Continuous");
+        }
+        alwaysContinuousPhase = continuousMetrics.addPhase("alwaysContinuous");
+    }
+
+    /**
+     * Overrides method from RobotBase. This is called by main and runs the
+     * user robot code until endCompetition is called.
+     */
+    @Override
+    public void startCompetition() {
+        HAL.report(tResourceType.kResourceType_Framework, tInstances.kFramework_Iterative);
+        robotInit();
+        HAL.observeUserProgramStarting();
+
+        LiveWindow.setEnabled(false);
+
+        running = true;
+        continuousScheduler.start();
+
+        try {
+            while (running) {
+                if (TorqueClock.isVirtual()) {
+                    TorqueClock.sleepUntil(TorqueClock.nanos() + PERIODIC_PERIOD_NANOS);
+                    periodicTick();
+                } else if (DriverStation.waitForData(DATA_TIMEOUT))
+                    periodicTick();
+                if (continuousError != null) throw new RuntimeException("Continuous loop crashed", continuousError);
+            }
+        } finally {
+            running = false;
+            continuousScheduler.stop();
+        }
+    }
+
+    /**
+     * Stops both loops. startCompetition returns after the current tick.
+     */
+    @Override
+    public void endCompetition() { running = false; }
+
+    private final void periodicTick() {
+        final TorqueMode current = TorqueMode.fromDriverStation();
+
+        if (current != mode) {
+            synchronized (transitionLock) {
+                LiveWindow.setEnabled(current == TorqueMode.TEST);
+                final long start = periodicMetrics.start();
+                init(current);
+                periodicMetrics.record(initPhases[current.ordinal()], start);
+                mode = current;
+            }
+        }
+
+        observe(current);
+        periodicMetrics.startTick();
+        final long start = periodicMetrics.start();
+        periodic(current);
+        periodicMetrics.record(periodicPhases[current.ordinal()], start);
+        periodicMetrics.endTick();
+    }
+
+    private final void continuousTick() {
+        if (!running) return;
+        try {
+            synchronized (transitionLock) {
+                final TorqueMode current = mode;
+                if (current == null) return;
+
+                continuousMetrics.startTick();
+                long start = continuousMetrics.start();
+                continuous(current);
+                continuousMetrics.record(continuousPhases[current.ordinal()], start);
+                start = continuousMetrics.start();
+                alwaysContinuous();
+                continuousMetrics.record(alwaysContinuousPhase, start);
+                continuousMetrics.endTick();
+            }
+        } catch (final Throwable e) {
+            continuousError = e;
+            running = false;
+            continuousScheduler.stop();
+        }
+    }
+
+    private final void init(final TorqueMode current) {
+        switch (current) {
+        case DISABLED: disabledInit(); break;
+        case AUTO: autoInit(); break;
+        case TELEOP: teleopInit(); break;
+        case TEST: testInit(); break;
+        }
+    }
+
+    private final void periodic(final TorqueMode current) {
+        switch (current) {
+        case DISABLED: disabledPeriodic(); break;
+        case AUTO: autoPeriodic(); break;
+        case TELEOP: teleopPeriodic(); break;
+        case TEST: testPeriodic(); break;
+        }
+    }
+
+    private final void continuous(final TorqueMode current) {
+        switch (current) {
+        case DISABLED: disabledContinuous(); break;
+        case AUTO: autoContinuous(); break;
+        case TELEOP: teleopContinuous(); break;
+        case TEST: testContinuous(); break;
+        }
+    }
+
+    private static final void observe(final TorqueMode current) {
+        switch (current) {
+        case DISABLED: HAL.observeUserProgramDisabled(); break;
+        case AUTO: HAL.observeUserProgramAutonomous(); break;
+        case TELEOP: HAL.observeUserProgramTeleop(); break;
+        case TEST: HAL.observeUserProgramTest(); break;
+        }
+    }
+
+    /**
+     * Returns the mode whose init has most recently completed.
+     *
+     * @return The current mode, or null before the first transition.
+     */
+    public final TorqueMode getMode() { return mode; }
+
+    /**
+     * Returns the scheduler driving the continuous thread.
+     *
+     * @return The continuous loop scheduler.
+     */
+    public final TorqueLoopScheduler getContinuousScheduler() { return continuousScheduler; }
+
+    /**
+     * Returns the timing metrics of the periodic loop.
+     *
+     * @return The periodic loop metrics.
+     */
+    public final TorqueLoopMetrics getPeriodicMetrics() { return periodicMetrics; }
+
+    /**
+     * Returns the timing metrics of the continuous loop.
+     *
+     * @return The continuous loop metrics.
+     */
+    public final TorqueLoopMetrics getContinuousMetrics() { return continuousMetrics; }
+
+    /* ----------- Overridable initialization code ----------------- */
+    public void robotInit() {}
+
+    public void disabledInit() {}
+
+    public void autoInit() {}
+
+    public void teleopInit() {}
+
+    public void testInit() {}
+
+    /* ----------- Overridable periodic code ----------------- */
+    public void disabledPeriodic() {}
+
+    public void autoPeriodic() {}
+
+    public void teleopPeriodic() {}
+
+    public void testPeriodic() {}
+
+    /* ----------- Overridable continuous code ----------------- */
+    public void disabledContinuous() {}
+
+    public void autoContinuous() {}
+
+    public void teleopContinuous() {}
+
+    public void testContinuous() {}
+
+    public void alwaysContinuous() {}
+}
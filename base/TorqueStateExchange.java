@@ -0,0 +1,86 @@
+package org.texastorque.torquelib.base;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * A lock free, allocation free handoff of state from one thread to another,
+ * like from the periodic thread to the continuous thread.
+ *
+ * Uses triple buffering: the writer fills a back buffer and publishes it by
+ * swapping it with the middle buffer, the reader swaps the middle buffer
+ * into its front buffer when something new has been published. The reader
+ * always sees the latest complete snapshot and never a half written one,
+ * and neither side ever blocks.
+ *
+ * Only one thread may write and only one thread may read. The buffer handed
+ * out by write() holds stale data from an older snapshot, so the writer must
+ * set every field before publishing.
+ *
+ * Usage:
+ * <pre>
+ * // Writer thread
+ * final DriveState state = exchange.write();
+ * state.x = ...;
+ * state.y = ...;
+ * exchange.publish();
+ *
+ * // Reader thread
+ * final DriveState state = exchange.read();
+ * </pre>
+ *
+ * @author Justus Languell
+ */
+public final class TorqueStateExchange<T> {
+    private static final int INDEX_MASK = 3, FRESH = 4;
+
+    private final Object[] buffers = new Object[3];
+    private final AtomicInteger middle = new AtomicInteger(1);
+    private int back = 2, front = 0;
+
+    /**
+     * Creates a new state exchange.
+     *
+     * @param factory Creates the three buffers, each call must return a new object.
+     */
+    public TorqueStateExchange(final Supplier<T> factory) {
+        for (int i = 0; i < buffers.length; i++) buffers[i] = factory.get();
+        if (buffers[0] == buffers[1] || buffers[1] == buffers[2] || buffers[0] == buffers[2])
+            throw new IllegalArgumentException("Factory must return a new object every call");
+    }
+
+    /**
+     * Returns the buffer to fill with the next snapshot. Writer thread only.
+     *
+     * @return The back buffer.
+     */
+    @SuppressWarnings("unchecked")
+    public final T write() {
+        return (T)buffers[back];
+    }
+
+    /**
+     * Publishes the buffer returned by write(). Writer thread only.
+     */
+    public final void publish() { back = middle.getAndSet(back | FRESH) & INDEX_MASK; }
+
+    /**
+     * Returns the latest published snapshot. Reader thread only.
+     *
+     * The returned object stays valid and unchanged until the next call to read().
+     *
+     * @return The front buffer.
+     */
+    @SuppressWarnings("unchecked")
+    public final T read() {
+        if ((middle.get() & FRESH) != 0) front = middle.getAndSet(front) & INDEX_MASK;
+        return (T)buffers[front];
+    }
+
+    /**
+     * Returns if a snapshot has been published since the last read. Reader thread only.
+     *
+     * @return If there is a new snapshot.
+     */
+    public final boolean hasUpdate() { return (middle.get() & FRESH) != 0; }
+}
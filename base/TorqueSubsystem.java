@@ -18,4 +18,32 @@ public abstract class TorqueSubsystem {
     public void updateDisabled() {}
 
     public void smartDashboard() {}
+
+    /**
+     * Calls the init method for a mode. Test mode has no init.
+     *
+     * @param mode The mode to initialize.
+     */
+    public final void init(final TorqueMode mode) {
+        switch (mode) {
+        case DISABLED: initDisabled(); break;
+        case AUTO: initAuto(); break;
+        case TELEOP: initTeleop(); break;
+        default: break;
+        }
+    }
+
+    /**
+     * Calls the update method for a mode. Test mode has no update.
+     *
+     * @param mode The mode to update.
+     */
+    public final void update(final TorqueMode mode) {
+        switch (mode) {
+        case DISABLED: updateDisabled(); break;
+        case AUTO: updateAuto(); break;
+        case TELEOP: updateTeleop(); break;
+        default: break;
+        }
+    }
 }
@@ -0,0 +1,291 @@
+package org.texastorque.torquelib.base;
+
+import java.util.ArrayList;
+
+/**
+ * Runs subsystems at their own rates from a single fast base loop.
+ *
+ * Each subsystem declares a rate that must divide the base rate evenly
+ * (e.g. 200, 100, 50, 10 hz on a 200 hz base). A subsystem that runs every
+ * n base ticks is assigned to one of the n slots, picking the slot that is
+ * least loaded by the subsystems already added, so slow subsystems are
+ * spread across ticks instead of all landing on the same one.
+ *
+ * Subsystems can also be given a priority and a time budget. When the loop
+ * runs late (the last tick overran the frame budget or this tick started
+ * late), LOW subsystems are skipped, NORMAL subsystems are run on every
+ * other due slot and smartDashboard is only called for CRITICAL subsystems.
+ * Within a tick, a NORMAL or LOW subsystem whose budget no longer fits in
+ * what is left of the frame is skipped. CRITICAL and HIGH subsystems are
+ * never skipped. The subsystem that took the most time in an overrunning
+ * tick is recorded as the culprit. Budgets are measured on the real clock,
+ * see TorqueClock.
+ *
+ * Call run() from a loop running at the base rate, like the continuous loop
+ * of TorqueRobotBase.
+ *
+ * @author Justus Languell
+ */
+public final class TorqueSubsystemScheduler {
+    // The largest schedule (in base ticks) used for slot balancing.
+    private static final int MAX_HYPERPERIOD = 10000;
+
+    // A tick that starts this many periods after the last one counts as late.
+    private static final double LATE_FACTOR = 1.5;
+
+    /**
+     * How important a subsystem is to keep running when the loop is late.
+     */
+    public enum Priority {
+        /** Always runs, including smartDashboard. */
+        CRITICAL,
+        /** Always runs, smartDashboard is skipped when late. */
+        HIGH,
+        /** Runs every other due slot when late. */
+        NORMAL,
+        /** Skipped when late. */
+        LOW
+    }
+
+    private static final class Entry {
+        private final TorqueSubsystem subsystem;
+        private final int divisor;
+        private final Priority priority;
+        private final long budgetNanos;
+        private int slot = 0;
+
+        private long lateRuns = 0, skipped = 0, overBudget = 0;
+
+        private Entry(final TorqueSubsystem subsystem, final int divisor, final Priority priority,
+                      final long budgetNanos) {
+            this.subsystem = subsystem;
+            this.divisor = divisor;
+            this.priority = priority;
+            this.budgetNanos = budgetNanos;
+        }
+    }
+
+    private final double baseRate;
+    private final ArrayList<Entry> entries = new ArrayList<Entry>();
+    private Entry[] schedule = new Entry[0];
+    private long tick = 0;
+
+    private final long periodNanos;
+    private long frameBudgetNanos;
+    private long lastTickStart = -1;
+    private boolean lastTickOverran = false, lastTickLate = false;
+    private long overruns = 0;
+    private TorqueSubsystem culprit = null;
+
+    /**
+     * Creates a new scheduler.
+     *
+     * @param baseRate The rate run() is called at in hz.
+     */
+    public TorqueSubsystemScheduler(final double baseRate) {
+        if (baseRate <= 0) throw new IllegalArgumentException("Base rate must be positive");
+        this.baseRate = baseRate;
+        this.periodNanos = Math.round(1e9 / baseRate);
+        this.frameBudgetNanos = periodNanos;
+    }
+
+    /**
+     * Adds a subsystem to run at the base rate.
+     *
+     * @param subsystem The subsystem.
+     */
+    public final void add(final TorqueSubsystem subsystem) { add(subsystem, baseRate); }
+
+    /**
+     * Adds a subsystem to run at its own rate.
+     *
+     * @param subsystem The subsystem.
+     * @param rate      The rate to update the subsystem at in hz, must divide the base rate.
+     */
+    public final void add(final TorqueSubsystem subsystem, final double rate) {
+        add(subsystem, rate, Priority.NORMAL, 0);
+    }
+
+    /**
+     * Adds a subsystem to run at its own rate with a priority and time budget.
+     *
+     * @param subsystem The subsystem.
+     * @param rate      The rate to update the subsystem at in hz, must divide the base rate.
+     * @param priority  How important the subsystem is when the loop is late.
+     * @param budget    The time the subsystem is expected to take per update in seconds, 0 for none.
+     */
+    public final void add(final TorqueSubsystem subsystem, final double rate, final Priority priority,
+                          final double budget) {
+        final double ratio = baseRate / rate;
+        final int divisor = (int)Math.round(ratio);
+        if (rate <= 0 || divisor < 1 || Math.abs(ratio - divisor) > 1e-6)
+            throw new IllegalArgumentException(
+                    String.format("Rate %.2f hz does not divide the base rate %.2f hz", rate, baseRate));
+
+        entries.add(new Entry(subsystem, divisor, priority, Math.round(budget * 1e9)));
+        assignSlots();
+    }
+
+    /**
+     * Assign slots fastest first, each subsystem taking the slot whose busiest
+     * tick is least loaded so far.
+     */
+    private final void assignSlots() {
+        int hyperperiod = 1;
+        for (final Entry entry : entries) hyperperiod = lcm(hyperperiod, entry.divisor);
+        hyperperiod = Math.min(hyperperiod, MAX_HYPERPERIOD);
+
+        final ArrayList<Entry> sorted = new ArrayList<Entry>(entries);
+        sorted.sort((a, b) -> Integer.compare(a.divisor, b.divisor));
+
+        final int[] load = new int[hyperperiod];
+        for (final Entry entry : sorted) {
+            int bestSlot = 0, bestLoad = Integer.MAX_VALUE;
+            for (int slot = 0; slot < entry.divisor; slot++) {
+                int worst = 0;
+                for (int t = slot; t < hyperperiod; t += entry.divisor) worst = Math.max(worst, load[t]);
+                if (worst < bestLoad) {
+                    bestLoad = worst;
+                    bestSlot = slot;
+                }
+            }
+            entry.slot = bestSlot;
+            for (int t = bestSlot; t < hyperperiod; t += entry.divisor) load[t]++;
+        }
+
+        // Run the most important and fastest subsystems first.
+        sorted.sort((a, b) -> a.priority != b.priority ? a.priority.compareTo(b.priority)
+                                                       : Integer.compare(a.divisor, b.divisor));
+        schedule = sorted.toArray(new Entry[0]);
+    }
+
+    private static final int lcm(final int a, final int b) {
+        int x = a, y = b;
+        while (y != 0) {
+            final int r = x % y;
+            x = y;
+            y = r;
+        }
+        return (int)Math.min((long)a / x * b, MAX_HYPERPERIOD);
+    }
+
+    /**
+     * Initializes every subsystem for a mode and restarts the schedule.
+     *
+     * @param mode The mode to initialize.
+     */
+    public final void init(final TorqueMode mode) {
+        for (final Entry entry : schedule) entry.subsystem.init(mode);
+        tick = 0;
+        lastTickStart = -1;
+        lastTickOverran = false;
+    }
+
+    /**
+     * Runs one base tick, updating the subsystems whose slot is due.
+     *
+     * @param mode The current mode.
+     */
+    public final void run(final TorqueMode mode) {
+        final long tickStart = System.nanoTime();
+        final boolean late = lastTickOverran ||
+                             (lastTickStart >= 0 && tickStart - lastTickStart > LATE_FACTOR * periodNanos);
+        lastTickStart = tickStart;
+
+        Entry slowest = null;
+        long slowestTime = 0;
+
+        for (final Entry entry : schedule) {
+            if (tick % entry.divisor != entry.slot) continue;
+
+            if (!shouldRun(entry, late, System.nanoTime() - tickStart)) {
+                entry.skipped++;
+                continue;
+            }
+
+            final long start = System.nanoTime();
+            entry.subsystem.update(mode);
+            if (!late || entry.priority == Priority.CRITICAL) entry.subsystem.smartDashboard();
+            final long elapsed = System.nanoTime() - start;
+
+            if (entry.budgetNanos > 0 && elapsed > entry.budgetNanos) entry.overBudget++;
+            if (elapsed > slowestTime) {
+                slowestTime = elapsed;
+                slowest = entry;
+            }
+        }
+
+        lastTickOverran = System.nanoTime() - tickStart > frameBudgetNanos;
+        lastTickLate = late;
+        if (lastTickOverran) {
+            overruns++;
+            if (slowest != null) culprit = slowest.subsystem;
+        }
+        tick++;
+    }
+
+    private final boolean shouldRun(final Entry entry, final boolean late, final long elapsed) {
+        if (entry.priority == Priority.CRITICAL || entry.priority == Priority.HIGH) return true;
+        if (entry.budgetNanos > 0 && elapsed + entry.budgetNanos > frameBudgetNanos) return false;
+        if (!late) return true;
+        return entry.priority == Priority.NORMAL && entry.lateRuns++ % 2 == 0;
+    }
+
+    /**
+     * Sets the time a whole tick is allowed to take. Defaults to the base period.
+     *
+     * @param budget The frame budget in seconds.
+     */
+    public final void setFrameBudget(final double budget) { frameBudgetNanos = Math.round(budget * 1e9); }
+
+    /**
+     * Returns the subsystem that took the most time in the last tick that overran.
+     *
+     * @return The culprit, or null if no tick has overrun.
+     */
+    public final TorqueSubsystem getOverrunCulprit() { return culprit; }
+
+    /**
+     * Returns the number of ticks that overran the frame budget.
+     *
+     * @return The overrun count.
+     */
+    public final long getOverrunCount() { return overruns; }
+
+    /**
+     * Returns whether the last tick ran in degraded mode.
+     *
+     * @return If the last tick was late.
+     */
+    public final boolean wasLastTickLate() { return lastTickLate; }
+
+    /**
+     * Returns the number of updates of a subsystem skipped to keep the deadline.
+     *
+     * @param subsystem The subsystem.
+     * @return The skipped update count.
+     */
+    public final long getSkippedCount(final TorqueSubsystem subsystem) {
+        final Entry entry = find(subsystem);
+        return entry == null ? 0 : entry.skipped;
+    }
+
+    /**
+     * Returns the number of updates of a subsystem that went over its budget.
+     *
+     * @param subsystem The subsystem.
+     * @return The over budget count.
+     */
+    public final long getOverBudgetCount(final TorqueSubsystem subsystem) {
+        final Entry entry = find(subsystem);
+        return entry == null ? 0 : entry.overBudget;
+    }
+
+    private final Entry find(final TorqueSubsystem subsystem) {
+        for (final Entry entry : schedule)
+            if (entry.subsystem == subsystem) return entry;
+        return null;
+    }
+
+    public final double getBaseRate() { return baseRate; }
+}
@@ -1,6 +1,6 @@
 package org.texastorque.torquelib.base;
 
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import org.texastorque.torquelib.log.TorqueTelemetry;
 
 /**
  * A enum interface that is extended by enums that
@@ -8,11 +8,12 @@ import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
  */
 public interface TorqueSubsystemState {
     /**
-     * Logs an enum that implements TorqueSubsystemState to SmartDashboard.
+     * Logs an enum that implements TorqueSubsystemState to SmartDashboard
+     * through TorqueTelemetry.
      *
      * @param state The state enum.
      */
     public static void logState(final TorqueSubsystemState state) {
-        SmartDashboard.putString(state.getClass().getSimpleName(), state.toString());
+        TorqueTelemetry.putString(state.getClass().getSimpleName(), state.toString());
     }
 }
@@ -1,14 +1,57 @@
 package org.texastorque.torquelib.log;
 
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import java.util.function.Consumer;
 
 public final class SBBoolean extends SBEntry {
+    private volatile boolean value;
+    private volatile Consumer<Boolean> onChange = null;
+
     public SBBoolean(final String name, final boolean defaultValue) {
         super(name, defaultValue);
         SmartDashboard.putBoolean(name, defaultValue);
+        value = defaultValue;
+        countPublished();
+        listen(notification -> {
+            if (notification.value.isBoolean()) update(notification.value.getBoolean());
+        });
+    }
+
+    private final void update(final boolean value) {
+        if (value == this.value) return;
+        this.value = value;
+        final Consumer<Boolean> onChange = this.onChange;
+        if (onChange != null) onChange.accept(value);
     }
 
-    public final void set(final boolean value) { SmartDashboard.putBoolean(name, value); }
+    /**
+     * Calls back when the value is changed on the dashboard. The callback
+     * runs on the NetworkTables listener thread.
+     *
+     * @param onChange The callback, or null for none.
+     * @return This entry.
+     */
+    public final SBBoolean onChange(final Consumer<Boolean> onChange) {
+        this.onChange = onChange;
+        return this;
+    }
+
+    /**
+     * Publishes the value if it differs from the current value.
+     */
+    public final void set(final boolean value) {
+        if (value == this.value) {
+            countSuppressed();
+            return;
+        }
+        // If the put was dropped, keep the old value so the next set retries.
+        if (!TorqueTelemetry.putBoolean(key, value)) return;
+        this.value = value;
+        countPublished();
+    }
 
-    public final boolean get() { return SmartDashboard.getBoolean(name, (boolean)defaultValue); }
+    /**
+     * Returns the latest value, kept up to date by a listener.
+     */
+    public final boolean get() { return value; }
 }
@@ -1,11 +1,53 @@
 package org.texastorque.torquelib.log;
 
+import edu.wpi.first.networktables.EntryListenerFlags;
+import edu.wpi.first.networktables.EntryNotification;
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import java.util.function.Consumer;
+
 public abstract class SBEntry {
     protected final String name;
     protected final Object defaultValue;
+    protected final int key;
+    protected final NetworkTableEntry entry;
+
+    private long published = 0, suppressed = 0;
 
     public SBEntry(final String name, final Object defaultValue) {
         this.name = name;
         this.defaultValue = defaultValue;
+        this.key = TorqueTelemetry.key(name);
+        this.entry = SmartDashboard.getEntry(name);
     }
+
+    /**
+     * Subscribes to the entry once, so reads are field loads instead of
+     * table lookups. The listener runs on the NetworkTables listener thread
+     * for the current value and remote changes. Local writes are not
+     * echoed, since set() updates the cached value itself and a late echo
+     * of an older publish would overwrite a newer set.
+     *
+     * @param listener The listener.
+     */
+    protected final void listen(final Consumer<EntryNotification> listener) {
+        entry.addListener(listener,
+                          EntryListenerFlags.kImmediate | EntryListenerFlags.kNew | EntryListenerFlags.kUpdate);
+    }
+
+    /**
+     * Counts a write that went to SmartDashboard.
+     */
+    protected final void countPublished() { published++; }
+
+    /**
+     * Counts a write that was skipped because the value did not change enough.
+     */
+    protected final void countSuppressed() { suppressed++; }
+
+    public final long getPublishedCount() { return published; }
+
+    public final long getSuppressedCount() { return suppressed; }
+
+    public final String getName() { return name; }
 }
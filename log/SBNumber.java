@@ -1,14 +1,99 @@
 package org.texastorque.torquelib.log;
 
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import java.util.function.DoubleConsumer;
+import org.texastorque.torquelib.util.TorqueClock;
 
 public final class SBNumber extends SBEntry {
+    private double absoluteDeadband = 0, relativeDeadband = 0;
+    private long minPeriodNanos = 0, lastPublish;
+
+    private volatile double value;
+    private volatile DoubleConsumer onChange = null;
+
     public SBNumber(final String name, final double defaultValue) {
         super(name, defaultValue);
         SmartDashboard.putNumber(name, defaultValue);
+        value = defaultValue;
+        lastPublish = TorqueClock.nanos();
+        countPublished();
+        listen(notification -> {
+            if (notification.value.isDouble()) update(notification.value.getDouble());
+        });
+    }
+
+    private final void update(final double value) {
+        if (Double.doubleToLongBits(value) == Double.doubleToLongBits(this.value)) return;
+        this.value = value;
+        final DoubleConsumer onChange = this.onChange;
+        if (onChange != null) onChange.accept(value);
     }
 
-    public final void set(final double value) { SmartDashboard.putNumber(name, value); }
+    /**
+     * Calls back when the value is changed on the dashboard, for example to
+     * push tuned gains to hardware only when they change. The callback runs
+     * on the NetworkTables listener thread.
+     *
+     * @param onChange The callback, or null for none.
+     * @return This entry.
+     */
+    public final SBNumber onChange(final DoubleConsumer onChange) {
+        this.onChange = onChange;
+        return this;
+    }
+
+    /**
+     * Skips writes that are within a deadband of the current value.
+     * A write is skipped if it is within either deadband.
+     *
+     * @param absolute The absolute deadband.
+     * @param relative The deadband as a fraction of the current value.
+     * @return This entry.
+     */
+    public final SBNumber setDeadband(final double absolute, final double relative) {
+        absoluteDeadband = Math.max(0, absolute);
+        relativeDeadband = Math.max(0, relative);
+        return this;
+    }
+
+    /**
+     * Limits how often the value is published. Writes in between are skipped,
+     * so the latest value is held back until the next write after the limit.
+     *
+     * @param rate The most publishes per second, or 0 for no limit.
+     * @return This entry.
+     */
+    public final SBNumber setMaxRate(final double rate) {
+        minPeriodNanos = rate > 0 ? Math.round(1e9 / rate) : 0;
+        return this;
+    }
+
+    /**
+     * Publishes the value if it moved out of the deadband and the rate limit allows it.
+     */
+    public final void set(final double value) {
+        final double current = this.value, delta = Math.abs(value - current);
+        if (Double.doubleToLongBits(value) == Double.doubleToLongBits(current) || delta <= absoluteDeadband
+            || delta <= relativeDeadband * Math.abs(current)) {
+            countSuppressed();
+            return;
+        }
+
+        final long now = minPeriodNanos > 0 ? TorqueClock.nanos() : 0;
+        if (minPeriodNanos > 0 && now - lastPublish < minPeriodNanos) {
+            countSuppressed();
+            return;
+        }
+
+        // If the put was dropped, keep the old value so the next set retries.
+        if (!TorqueTelemetry.putNumber(key, value)) return;
+        this.value = value;
+        lastPublish = now;
+        countPublished();
+    }
 
-    public final double get() { return SmartDashboard.getNumber(name, (double)defaultValue); }
+    /**
+     * Returns the latest value, kept up to date by a listener.
+     */
+    public final double get() { return value; }
 }
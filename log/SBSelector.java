@@ -1,38 +1,85 @@
 package org.texastorque.torquelib.log;
 
+import edu.wpi.first.networktables.EntryListenerFlags;
 import edu.wpi.first.networktables.NetworkTableInstance;
 import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
-import java.util.HashMap;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 public final class SBSelector<T> {
-    private final HashMap<String, T> options;
+    private final ConcurrentHashMap<String, T> options;
     private final SendableChooser<String> selector;
     private final String name;
 
+    private volatile String defaultName = null, selectedName = null;
+    private volatile T selected = null;
+    private volatile Consumer<T> onChange = null;
+
     public SBSelector(String name) {
-        options = new HashMap<String, T>();
+        options = new ConcurrentHashMap<String, T>();
         selector = new SendableChooser<String>();
         this.name = name;
+
+        NetworkTableInstance.getDefault()
+                .getTable("SmartDashboard")
+                .getSubTable(name)
+                .getEntry("selected")
+                .addListener(notification -> {
+                    if (notification.value.isString()) select(notification.value.getString());
+                }, EntryListenerFlags.kImmediate | EntryListenerFlags.kNew | EntryListenerFlags.kUpdate);
     }
 
     public final void add(String name, T value) {
-        if (options.size() == 0)
+        if (options.size() == 0) {
             selector.setDefaultOption(name, name);
-        else
+            defaultName = name;
+        } else
             selector.addOption(name, name);
 
         options.put(name, value);
         update();
+        resolve();
     }
 
     public final void update() { SmartDashboard.putData(name, selector); }
 
-    public final T get() {
-        return options.get(NetworkTableInstance.getDefault()
-                                   .getTable("SmartDashboard")
-                                   .getSubTable(name)
-                                   .getEntry("selected")
-                                   .getString("N/A"));
+    /**
+     * Calls back when the selected option changes, for example to pre-build
+     * the chosen option. The callback runs on the NetworkTables listener
+     * thread when the operator changes the selection, or on the thread
+     * calling add when the new option changes what the selection resolves to.
+     *
+     * @param onChange The callback, or null for none.
+     * @return This selector.
+     */
+    public final SBSelector<T> onChange(final Consumer<T> onChange) {
+        this.onChange = onChange;
+        return this;
+    }
+
+    private final void select(final String selection) {
+        selectedName = selection;
+        resolve();
     }
+
+    /**
+     * Resolves the selection to its option, falling back to the default
+     * option until something is selected.
+     */
+    private final synchronized void resolve() {
+        final String name = selectedName != null && options.containsKey(selectedName) ? selectedName : defaultName;
+        final T value = name == null ? null : options.get(name);
+        if (Objects.equals(value, selected)) return;
+        selected = value;
+
+        final Consumer<T> onChange = this.onChange;
+        if (onChange != null) onChange.accept(value);
+    }
+
+    /**
+     * Returns the selected option, kept up to date by a listener.
+     */
+    public final T get() { return selected; }
 }
@@ -1,14 +1,58 @@
 package org.texastorque.torquelib.log;
 
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import java.util.Objects;
+import java.util.function.Consumer;
 
 public final class SBString extends SBEntry {
+    private volatile String value;
+    private volatile Consumer<String> onChange = null;
+
     public SBString(final String name, final String defaultValue) {
         super(name, defaultValue);
         SmartDashboard.putString(name, defaultValue);
+        value = defaultValue;
+        countPublished();
+        listen(notification -> {
+            if (notification.value.isString()) update(notification.value.getString());
+        });
+    }
+
+    private final void update(final String value) {
+        if (Objects.equals(value, this.value)) return;
+        this.value = value;
+        final Consumer<String> onChange = this.onChange;
+        if (onChange != null) onChange.accept(value);
     }
 
-    public final void set(final String value) { SmartDashboard.putString(name, value); }
+    /**
+     * Calls back when the value is changed on the dashboard. The callback
+     * runs on the NetworkTables listener thread.
+     *
+     * @param onChange The callback, or null for none.
+     * @return This entry.
+     */
+    public final SBString onChange(final Consumer<String> onChange) {
+        this.onChange = onChange;
+        return this;
+    }
+
+    /**
+     * Publishes the value if it differs from the current value.
+     */
+    public final void set(final String value) {
+        if (Objects.equals(value, this.value)) {
+            countSuppressed();
+            return;
+        }
+        // If the put was dropped, keep the old value so the next set retries.
+        if (!TorqueTelemetry.putString(key, value)) return;
+        this.value = value;
+        countPublished();
+    }
 
-    public final String get() { return SmartDashboard.getString(name, (String)defaultValue); }
+    /**
+     * Returns the latest value, kept up to date by a listener.
+     */
+    public final String get() { return value; }
 }
@@ -0,0 +1,310 @@
+package org.texastorque.torquelib.log;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.concurrent.locks.LockSupport;
+import org.texastorque.torquelib.util.TorqueClock;
+
+/**
+ * A binary data logger for recording every signal at loop rate.
+ *
+ * Values are written into an off-heap ring buffer and a background thread
+ * appends the ring to the file with FileChannel writes straight from the
+ * ring, so logging a value costs a few buffer writes and does not allocate.
+ * The file is not memory mapped, since old mappings are only released by the
+ * GC, which may not run, and would pile up on the 32 bit roboRIO JVM. If the ring is full the value is
+ * dropped and counted rather than blocking the loop.
+ *
+ * Usage:
+ * <pre>
+ * final TorqueDataLog log = new TorqueDataLog(Paths.get("/home/lvuser/logs/match.tlog"));
+ * final int voltage = log.key("Battery Voltage");
+ * ...
+ * log.log(voltage, RobotController.getBatteryVoltage()); // every tick
+ * </pre>
+ *
+ * File format, little endian. The file starts with a 16 byte header: the
+ * magic "TTDL", the version and the wall clock time the log was opened in
+ * milliseconds. Records follow, each starting with an int whose top byte is
+ * the record type and whose low 24 bits are the key id. Every record is a
+ * multiple of 4 bytes long, and no record header is zero.
+ * - END: a zero int, never written as a header. Stop reading at the first
+ *   zero header or at the end of the file. After a crash the last record
+ *   may be incomplete, or the file may end in zeros if it was preallocated.
+ * - KEY: header, name length, name as UTF-16 chars, padded. Written once
+ *   per key before its first value.
+ * - DOUBLE: header, TorqueClock timestamp in nanoseconds, value. 20 bytes.
+ * - BOOLEAN: header, timestamp, value as an int. 16 bytes.
+ * - STRING: header, timestamp, length, UTF-16 chars, padded.
+ * - DOUBLE_ARRAY: header, timestamp, length, values.
+ * - PAD: header with the length of the padding, including the 4 byte header,
+ *   in the low 24 bits. Skip it.
+ *
+ * @author Justus Languell
+ */
+public final class TorqueDataLog implements AutoCloseable {
+    public static final int END = 0, PAD = 1, KEY = 2, DOUBLE = 3, BOOLEAN = 4, STRING = 5, DOUBLE_ARRAY = 6;
+
+    private static final int MAGIC = 0x4c445454; // "TTDL" read as a little endian int
+    private static final int VERSION = 2;
+    private static final int MAX_KEYS = 1 << 24, MAX_RING_BYTES = 1 << 24;
+    private static final long WRITE_PERIOD_NANOS = 10_000_000;
+
+    private static final VarHandle HEAD;
+    static {
+        try {
+            HEAD = MethodHandles.lookup().findVarHandle(TorqueDataLog.class, "head", long.class);
+        } catch (final ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final ByteBuffer ring;
+    // A view of the ring only used by the writer to hand ranges to the channel.
+    private final ByteBuffer source;
+    private final int capacity, mask;
+
+    // head is only written by producers (under the lock) and tail only by the writer thread.
+    private volatile long head = 0, tail = 0;
+    private long next = 0, dropped = 0;
+
+    private final HashMap<String, Integer> keyIds = new HashMap<String, Integer>();
+    private String[] keyNames = new String[64];
+    private boolean[] defined = new boolean[64];
+    private int keyCount = 0;
+
+    private final FileChannel channel;
+    private volatile long written = 0;
+
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    /**
+     * Creates a log with a 4 MiB ring buffer.
+     *
+     * @param file The file to write, replaced if it exists.
+     * @throws IOException If the file cannot be created.
+     */
+    public TorqueDataLog(final Path file) throws IOException { this(file, 1 << 22); }
+
+    /**
+     * Creates a log.
+     *
+     * @param file      The file to write, replaced if it exists.
+     * @param ringBytes The size of the ring buffer, a power of two up to 16 MiB.
+     * @throws IOException If the file cannot be created.
+     */
+    public TorqueDataLog(final Path file, final int ringBytes) throws IOException {
+        if (ringBytes < 1024 || ringBytes > MAX_RING_BYTES || Integer.bitCount(ringBytes) != 1)
+            throw new IllegalArgumentException("Ring size must be a power of two from 1 KiB to 16 MiB");
+        capacity = ringBytes;
+        mask = ringBytes - 1;
+        ring = ByteBuffer.allocateDirect(ringBytes).order(ByteOrder.LITTLE_ENDIAN);
+        source = ring.duplicate();
+
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                                   StandardOpenOption.WRITE);
+        final ByteBuffer header = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putLong(System.currentTimeMillis()).flip();
+        while (header.hasRemaining()) channel.write(header);
+        written = 16;
+
+        writer = new Thread(this::writeLoop, "Data Log");
+        writer.setDaemon(true);
+        writer.setPriority(Thread.MIN_PRIORITY);
+        writer.start();
+    }
+
+    /**
+     * Interns a key. Look keys up once and keep the id, since this is a map lookup.
+     * Logging with an id this did not return throws an IllegalArgumentException.
+     *
+     * @param name The name of the signal.
+     * @return The key id to pass to log.
+     */
+    public final synchronized int key(final String name) {
+        final Integer id = keyIds.get(name);
+        if (id != null) return id;
+        if (keyCount == MAX_KEYS) throw new IllegalStateException("Too many data log keys");
+
+        if (keyCount == keyNames.length) {
+            final String[] names = new String[keyCount * 2];
+            final boolean[] newDefined = new boolean[keyCount * 2];
+            System.arraycopy(keyNames, 0, names, 0, keyCount);
+            System.arraycopy(defined, 0, newDefined, 0, keyCount);
+            keyNames = names;
+            defined = newDefined;
+        }
+        keyNames[keyCount] = name;
+        keyIds.put(name, keyCount);
+        return keyCount++;
+    }
+
+    public final synchronized void log(final int key, final double value) {
+        final long time = TorqueClock.nanos();
+        final int pos = start(key, DOUBLE, 20);
+        if (pos < 0) return;
+        ring.putLong(pos + 4, time);
+        ring.putDouble(pos + 12, value);
+        publish();
+    }
+
+    public final synchronized void log(final int key, final boolean value) {
+        final long time = TorqueClock.nanos();
+        final int pos = start(key, BOOLEAN, 16);
+        if (pos < 0) return;
+        ring.putLong(pos + 4, time);
+        ring.putInt(pos + 12, value ? 1 : 0);
+        publish();
+    }
+
+    public final synchronized void log(final int key, final String value) {
+        final long time = TorqueClock.nanos();
+        final int length = value.length();
+        final int pos = start(key, STRING, align(16 + 2 * length));
+        if (pos < 0) return;
+        ring.putLong(pos + 4, time);
+        ring.putInt(pos + 12, length);
+        for (int i = 0; i < length; i++) ring.putChar(pos + 16 + 2 * i, value.charAt(i));
+        publish();
+    }
+
+    public final synchronized void log(final int key, final double[] value) {
+        final long time = TorqueClock.nanos();
+        final int pos = start(key, DOUBLE_ARRAY, 16 + 8 * value.length);
+        if (pos < 0) return;
+        ring.putLong(pos + 4, time);
+        ring.putInt(pos + 12, value.length);
+        for (int i = 0; i < value.length; i++) ring.putDouble(pos + 16 + 8 * i, value[i]);
+        publish();
+    }
+
+    /**
+     * Returns the number of values dropped because the ring was full.
+     *
+     * @return The dropped count.
+     */
+    public final synchronized long getDroppedCount() { return dropped; }
+
+    /**
+     * Returns the number of bytes written to the file so far.
+     *
+     * @return The file size in bytes.
+     */
+    public final long getBytesWritten() { return written; }
+
+    /**
+     * Writes the key definition if needed and reserves a record.
+     *
+     * @return The position of the record in the ring, or -1 if it was dropped.
+     */
+    private final int start(final int key, final int type, final int size) {
+        if (key < 0 || key >= keyCount) throw new IllegalArgumentException("Unknown data log key " + key);
+        if (!defined[key]) {
+            final String name = keyNames[key];
+            final int pos = reserve(align(8 + 2 * name.length()));
+            if (pos < 0) return -1;
+            ring.putInt(pos, KEY << 24 | key);
+            ring.putInt(pos + 4, name.length());
+            for (int i = 0; i < name.length(); i++) ring.putChar(pos + 8 + 2 * i, name.charAt(i));
+            publish();
+            defined[key] = true;
+        }
+
+        final int pos = reserve(size);
+        if (pos >= 0) ring.putInt(pos, type << 24 | key);
+        return pos;
+    }
+
+    /**
+     * Reserves space in the ring, padding to the end if the record would wrap.
+     * The record is published by setting head to next once it is written.
+     *
+     * @return The position of the record in the ring, or -1 if it does not fit.
+     */
+    private final int reserve(final int size) {
+        final long h = head;
+        final int pos = (int)h & mask, toEnd = capacity - pos;
+        final int needed = size <= toEnd ? size : toEnd + size;
+        if (size > capacity || capacity - (h - tail) < needed) {
+            dropped++;
+            return -1;
+        }
+        next = h + needed;
+        if (size <= toEnd) return pos;
+        // toEnd is at least 4 since records are aligned, so the padding fits its header.
+        ring.putInt(pos, PAD << 24 | toEnd);
+        return 0;
+    }
+
+    /**
+     * Makes the reserved record visible to the writer thread. A release store
+     * is enough since only the writer reads head, and it is much cheaper than
+     * a volatile store on every value.
+     */
+    private final void publish() { HEAD.setRelease(this, next); }
+
+    private static final int align(final int size) { return (size + 3) & ~3; }
+
+    private final void writeLoop() {
+        long deadline = System.nanoTime();
+        while (running) {
+            deadline += WRITE_PERIOD_NANOS;
+            long wait;
+            while (running && (wait = deadline - System.nanoTime()) > 0) LockSupport.parkNanos(wait);
+            try {
+                drain();
+            } catch (final IOException e) {
+                DriverStation.reportError("TorqueDataLog: write failed: " + e, false);
+                running = false;
+            }
+        }
+    }
+
+    private final void drain() throws IOException {
+        final long h = head;
+        long t = tail;
+        while (t < h) {
+            final int pos = (int)t & mask;
+            final int length = (int)Math.min(h - t, capacity - pos);
+            write(pos, length);
+            t += length;
+        }
+        tail = h;
+    }
+
+    private final void write(final int pos, final int length) throws IOException {
+        source.limit(pos + length).position(pos);
+        while (source.hasRemaining()) written += channel.write(source);
+    }
+
+    /**
+     * Writes everything logged so far and closes the file.
+     */
+    @Override
+    public final void close() throws IOException {
+        if (!channel.isOpen()) return;
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            drain();
+        }
+        channel.force(false);
+        channel.close();
+    }
+}
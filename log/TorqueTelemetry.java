@@ -0,0 +1,254 @@
+package org.texastorque.torquelib.log;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Publishes telemetry to SmartDashboard from a background thread, so the
+ * control loop never pays for NetworkTables I/O.
+ *
+ * Keys are interned to ints once. Each producer thread gets its own
+ * preallocated single producer ring, and a put only writes primitives into
+ * it. A low priority publisher thread drains the rings at 50 Hz, keeps only
+ * the latest value of each key and pushes those to SmartDashboard.
+ *
+ * If a ring is full the put is dropped and counted rather than blocking.
+ * The ring of a thread that has exited is removed once it is drained.
+ *
+ * @author Justus Languell
+ */
+public final class TorqueTelemetry {
+    private static final int RING_SIZE = 4096; // Must be a power of two.
+    private static final long PUBLISH_PERIOD_NANOS = 20_000_000;
+
+    private static final byte NUMBER = 0, BOOLEAN = 1, STRING = 2;
+
+    /**
+     * A single producer, single consumer ring owned by one producer thread.
+     */
+    private static final class Ring {
+        private final WeakReference<Thread> owner = new WeakReference<Thread>(Thread.currentThread());
+        private final int[] keys = new int[RING_SIZE];
+        private final byte[] types = new byte[RING_SIZE];
+        private final double[] numbers = new double[RING_SIZE];
+        private final String[] strings = new String[RING_SIZE];
+
+        // head is only written by the producer and tail only by the publisher.
+        private volatile long head = 0, tail = 0;
+        private long dropped = 0;
+
+        private final boolean put(final int key, final byte type, final double number, final String string) {
+            final long h = head;
+            if (h - tail >= RING_SIZE) {
+                dropped++;
+                return false;
+            }
+            final int i = (int)h & (RING_SIZE - 1);
+            keys[i] = key;
+            types[i] = type;
+            numbers[i] = number;
+            strings[i] = string;
+            head = h + 1;
+            return true;
+        }
+
+        private final boolean isOwnerAlive() {
+            final Thread thread = owner.get();
+            return thread != null && thread.isAlive();
+        }
+    }
+
+    private static final ConcurrentHashMap<String, Integer> keyIds = new ConcurrentHashMap<String, Integer>();
+    private static volatile String[] keyNames = new String[0];
+
+    private static final CopyOnWriteArrayList<Ring> rings = new CopyOnWriteArrayList<Ring>();
+    private static final ThreadLocal<Ring> localRing = ThreadLocal.withInitial(() -> {
+        final Ring ring = new Ring();
+        rings.add(ring);
+        return ring;
+    });
+
+    // Drops counted by rings that were removed, only written by the publisher thread.
+    private static volatile long retiredDropped = 0;
+
+    private static volatile boolean async = true;
+    private static Thread publisher = null;
+
+    // Coalesced latest values, only touched by the publisher thread.
+    private static int count = 0;
+    private static byte[] latestTypes = new byte[0];
+    private static double[] latestNumbers = new double[0];
+    private static String[] latestStrings = new String[0];
+    private static boolean[] dirty = new boolean[0];
+    private static int[] dirtyKeys = new int[0];
+
+    private TorqueTelemetry() {}
+
+    /**
+     * Interns a key. Look keys up once and keep the id, since this is a map lookup.
+     *
+     * @param name The SmartDashboard key.
+     * @return The key id to pass to put.
+     */
+    public static final int key(final String name) {
+        final Integer id = keyIds.get(name);
+        return id != null ? id : register(name);
+    }
+
+    private static final synchronized int register(final String name) {
+        final Integer existing = keyIds.get(name);
+        if (existing != null) return existing;
+
+        final String[] names = new String[keyNames.length + 1];
+        System.arraycopy(keyNames, 0, names, 0, keyNames.length);
+        names[keyNames.length] = name;
+        keyNames = names;
+        keyIds.put(name, keyNames.length - 1);
+
+        if (publisher == null) {
+            publisher = new Thread(TorqueTelemetry::publish, "Telemetry");
+            publisher.setDaemon(true);
+            publisher.setPriority(Thread.MIN_PRIORITY);
+            publisher.start();
+        }
+        return keyNames.length - 1;
+    }
+
+    /**
+     * Publish from the publisher thread, or inline on the calling thread.
+     * Inline publishing is useful in simulation or when debugging. Defaults to async.
+     *
+     * @param async To publish in the background or not.
+     */
+    public static final void setAsync(final boolean async) { TorqueTelemetry.async = async; }
+
+    /**
+     * Queues a number to publish.
+     *
+     * @return False if the put was dropped because the ring was full.
+     */
+    public static final boolean putNumber(final int key, final double value) {
+        if (async) return localRing.get().put(key, NUMBER, value, null);
+        SmartDashboard.putNumber(keyNames[key], value);
+        return true;
+    }
+
+    /**
+     * Queues a boolean to publish.
+     *
+     * @return False if the put was dropped because the ring was full.
+     */
+    public static final boolean putBoolean(final int key, final boolean value) {
+        if (async) return localRing.get().put(key, BOOLEAN, value ? 1 : 0, null);
+        SmartDashboard.putBoolean(keyNames[key], value);
+        return true;
+    }
+
+    /**
+     * Queues a string to publish.
+     *
+     * @return False if the put was dropped because the ring was full.
+     */
+    public static final boolean putString(final int key, final String value) {
+        if (async) return localRing.get().put(key, STRING, 0, value);
+        SmartDashboard.putString(keyNames[key], value);
+        return true;
+    }
+
+    public static final boolean putNumber(final String name, final double value) { return putNumber(key(name), value); }
+
+    public static final boolean putBoolean(final String name, final boolean value) {
+        return putBoolean(key(name), value);
+    }
+
+    public static final boolean putString(final String name, final String value) { return putString(key(name), value); }
+
+    /**
+     * Returns the number of puts dropped because a ring was full.
+     *
+     * @return The dropped count across every producer thread.
+     */
+    public static final long getDroppedCount() {
+        long dropped = retiredDropped;
+        for (final Ring ring : rings) dropped += ring.dropped;
+        return dropped;
+    }
+
+    private static final void publish() {
+        long deadline = System.nanoTime();
+        while (true) {
+            deadline += PUBLISH_PERIOD_NANOS;
+            long wait;
+            while ((wait = deadline - System.nanoTime()) > 0) LockSupport.parkNanos(wait);
+
+            try {
+                drain();
+            } catch (final RuntimeException e) {
+                DriverStation.reportWarning("TorqueTelemetry: publish failed: " + e, false);
+            }
+        }
+    }
+
+    private static final void drain() {
+        for (final Ring ring : rings) {
+            // Checked before reading head, so every put of an exited owner is drained below.
+            final boolean retired = !ring.isOwnerAlive();
+            final long head = ring.head;
+            for (long t = ring.tail; t < head; t++) {
+                final int i = (int)t & (RING_SIZE - 1);
+                final int key = ring.keys[i];
+                if (key >= dirty.length) grow(keyNames.length);
+                latestTypes[key] = ring.types[i];
+                latestNumbers[key] = ring.numbers[i];
+                latestStrings[key] = ring.strings[i];
+                ring.strings[i] = null;
+                if (!dirty[key]) {
+                    dirty[key] = true;
+                    dirtyKeys[count++] = key;
+                }
+            }
+            ring.tail = head;
+
+            if (retired) {
+                rings.remove(ring);
+                retiredDropped += ring.dropped;
+            }
+        }
+
+        // Read after draining, so every drained key has a name.
+        final String[] names = keyNames;
+        while (count > 0) {
+            final int key = dirtyKeys[--count];
+            dirty[key] = false;
+            switch (latestTypes[key]) {
+            case NUMBER: SmartDashboard.putNumber(names[key], latestNumbers[key]); break;
+            case BOOLEAN: SmartDashboard.putBoolean(names[key], latestNumbers[key] != 0); break;
+            default: SmartDashboard.putString(names[key], latestStrings[key]); break;
+            }
+            latestStrings[key] = null;
+        }
+    }
+
+    private static final void grow(final int size) {
+        final byte[] types = new byte[size];
+        final double[] numbers = new double[size];
+        final String[] strings = new String[size];
+        System.arraycopy(latestTypes, 0, types, 0, latestTypes.length);
+        System.arraycopy(latestNumbers, 0, numbers, 0, latestNumbers.length);
+        System.arraycopy(latestStrings, 0, strings, 0, latestStrings.length);
+        latestTypes = types;
+        latestNumbers = numbers;
+        latestStrings = strings;
+
+        final boolean[] newDirty = new boolean[size];
+        final int[] newDirtyKeys = new int[size];
+        System.arraycopy(dirty, 0, newDirty, 0, dirty.length);
+        System.arraycopy(dirtyKeys, 0, newDirtyKeys, 0, dirtyKeys.length);
+        dirty = newDirty;
+        dirtyKeys = newDirtyKeys;
+    }
+}
@@ -1,17 +1,20 @@
 package org.texastorque.torquelib.modules;
 
+import com.ctre.phoenix.ErrorCode;
 import com.ctre.phoenix.motorcontrol.SupplyCurrentLimitConfiguration;
+import com.revrobotics.REVLibError;
 import com.revrobotics.SparkMaxPIDController.ArbFFUnits;
 import edu.wpi.first.math.controller.SimpleMotorFeedforward;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
 import edu.wpi.first.wpilibj.DriverStation;
-import edu.wpi.first.wpilibj.Timer;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import org.texastorque.torquelib.log.TorqueTelemetry;
 import org.texastorque.torquelib.modules.base.TorqueSwerveModule;
 import org.texastorque.torquelib.motors.TorqueSparkMax;
 import org.texastorque.torquelib.motors.TorqueTalon;
 import org.texastorque.torquelib.util.KPID;
+import org.texastorque.torquelib.util.TorqueClock;
+import org.texastorque.torquelib.util.TorqueConfigPipeline;
 
 /**
  * A representation of the 2021 Texas Torque custom swervedrive module.
@@ -28,12 +31,14 @@ public final class TorqueSwerveModule2021 extends TorqueSwerveModule {
     private final TorqueSparkMax drive;
     private final TorqueTalon rotate;
 
-    private double lastSpeed = 0, lastTime = Timer.getFPGATimestamp(), maxVelocity;
+    private double lastSpeed = 0, lastTime = TorqueClock.seconds(), maxVelocity;
     private final double driveGearing, wheelRadiusMeters;
 
     private final SimpleMotorFeedforward driveFeedForward;
 
     private boolean logging = false;
+    // Interned once here, so logging from any thread only reads them.
+    private final int reqDegKey, reqEncKey, realEncKey, realDegKey, reqDriveKey, pwrDriveKey;
 
     /**
      * Construct a new TorqueSwerveModule2021.
@@ -53,9 +58,68 @@ public final class TorqueSwerveModule2021 extends TorqueSwerveModule {
                                   final double wheelRadiusMeters, final KPID drivePID, final KPID rotatePID,
                                   final double maxVelocity, final double maxAcceleration,
                                   final SimpleMotorFeedforward driveFeedForward) {
+        this(id, drivePort, rotatePort, driveGearing, wheelRadiusMeters, drivePID, rotatePID, maxVelocity,
+             maxAcceleration, driveFeedForward, null);
+    }
+
+    /**
+     * Construct a new TorqueSwerveModule2021 and queue the motor configuration on a pipeline.
+     *
+     * The drive and rotation motors are independent devices, so they are configured concurrently.
+     *
+     * @param id                The id of the swerve module.
+     * @param drivePort         The port (can id) of the drive motor.
+     * @param rotatePort        The port (can id) of the rotation motor.
+     * @param driveGearing      The drive motor gearing.
+     * @param wheelRadiusMeters The radius of the wheel in meters.
+     * @param drivePID          The drive motor PID.
+     * @param rotatePID         The rotation motor PID.
+     * @param maxVelocity       The maximum velocity of the drive motor in meters per second.
+     * @param maxAcceleration   The maximum acceleration of the drive motor in meters per second per second.
+     * @param driveFeedForward  The drive motor feed forward for autonomous.
+     * @param pipeline          The pipeline to configure the motors on, or null to configure them now.
+     */
+    public TorqueSwerveModule2021(final int id, final int drivePort, final int rotatePort, final double driveGearing,
+                                  final double wheelRadiusMeters, final KPID drivePID, final KPID rotatePID,
+                                  final double maxVelocity, final double maxAcceleration,
+                                  final SimpleMotorFeedforward driveFeedForward, final TorqueConfigPipeline pipeline) {
         super(id);
 
         drive = new TorqueSparkMax(drivePort);
+        rotate = new TorqueTalon(rotatePort);
+
+        if (pipeline == null) {
+            configureDrive(drivePID);
+            configureRotate(rotatePID);
+        } else {
+            final String driveName = String.format("Swerve %d drive", id);
+            pipeline.add(driveName, "configurePID", () -> drive.tryConfigurePID(drivePID) == REVLibError.kOk);
+            pipeline.add(driveName, "setSupplyLimit", () -> drive.setSupplyLimit(40) == REVLibError.kOk);
+            pipeline.add(driveName, "burnFlash", () -> drive.burnFlash() == REVLibError.kOk);
+
+            final String rotateName = String.format("Swerve %d rotate", id);
+            final SupplyCurrentLimitConfiguration rotateLimit = new SupplyCurrentLimitConfiguration(true, 5, 10, .03);
+            pipeline.add(rotateName, "setSupplyLimit", () -> rotate.setSupplyLimit(rotateLimit) == ErrorCode.OK);
+            pipeline.add(rotateName, "configurePID", () -> rotate.tryConfigurePID(rotatePID) == ErrorCode.OK);
+            pipeline.add(rotateName, "zeroEncoder", () -> rotate.zeroEncoder() == ErrorCode.OK);
+        }
+
+        this.driveGearing = driveGearing;
+        this.wheelRadiusMeters = wheelRadiusMeters;
+        this.driveFeedForward = driveFeedForward;
+        this.maxVelocity = maxVelocity;
+
+        reqDegKey = logKey("ReqDeg");
+        reqEncKey = logKey("ReqEnc");
+        realEncKey = logKey("RealEnc");
+        realDegKey = logKey("RealDeg");
+        reqDriveKey = logKey("ReqDrive");
+        pwrDriveKey = logKey("PwrDrive");
+    }
+
+    private final int logKey(final String key) { return TorqueTelemetry.key(String.format("%d %s", id, key)); }
+
+    private final void configureDrive(final KPID drivePID) {
         drive.configurePID(drivePID);
         // drive.configureSmartMotion(
         //         metersPerSecondToEncoderPerMinute(this.maxVelocity = maxVelocity),
@@ -66,16 +130,12 @@ public final class TorqueSwerveModule2021 extends TorqueSwerveModule {
 
         drive.setSupplyLimit(40);
         drive.burnFlash();
+    }
 
-        rotate = new TorqueTalon(rotatePort);
+    private final void configureRotate(final KPID rotatePID) {
         rotate.setSupplyLimit(new SupplyCurrentLimitConfiguration(true, 5, 10, .03));
         rotate.configurePID(rotatePID);
         rotate.zeroEncoder();
-
-        this.driveGearing = driveGearing;
-        this.wheelRadiusMeters = wheelRadiusMeters;
-        this.driveFeedForward = driveFeedForward;
-        this.maxVelocity = maxVelocity;
     }
 
     /**
@@ -95,21 +155,21 @@ public final class TorqueSwerveModule2021 extends TorqueSwerveModule {
         rotate.setPosition(adjustedEncoderUnits);
 
         if (id == 0) {
-            putNumber("ReqDeg", state.angle.getDegrees());
-            putNumber("ReqEnc", requestedEncoderUnits);
-            putNumber("RealEnc", rotate.getPosition());
-            putNumber("RealDeg", getRotationDegrees());
+            putNumber(reqDegKey, state.angle.getDegrees());
+            putNumber(reqEncKey, requestedEncoderUnits);
+            putNumber(realEncKey, rotate.getPosition());
+            putNumber(realDegKey, getRotationDegrees());
         }
 
         if (DriverStation.isTeleop()) {
             final double setpoint = Math.min(-state.speedMetersPerSecond / maxVelocity, 1.);
-            putNumber("ReqDrive", -state.speedMetersPerSecond);
-            putNumber("PwrDrive", setpoint);
+            putNumber(reqDriveKey, -state.speedMetersPerSecond);
+            putNumber(pwrDriveKey, setpoint);
             drive.setPercent(setpoint);
             return;
         }
 
-        final double currentTime = Timer.getFPGATimestamp();
+        final double currentTime = TorqueClock.seconds();
 
         drive.setFeedForwardSmartVelocity(
                 -metersPerSecondToEncoderPerMinute(state.speedMetersPerSecond),
@@ -205,10 +265,10 @@ public final class TorqueSwerveModule2021 extends TorqueSwerveModule {
     /**
      * Put number if this module is logging.
      *
-     * @param key The key to smart dashboard.
+     * @param key The telemetry key, interned in the constructor.
      * @param value The value to log.
      */
-    private final void putNumber(final String key, final double value) {
-        if (logging) SmartDashboard.putNumber(String.format("%d %s", id, key), value);
+    private final void putNumber(final int key, final double value) {
+        if (logging) TorqueTelemetry.putNumber(key, value);
     }
 }
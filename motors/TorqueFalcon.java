@@ -14,6 +14,8 @@ import org.texastorque.torquelib.motors.base.TorqueMotor;
 import org.texastorque.torquelib.motors.base.TorquePIDMotor;
 import org.texastorque.torquelib.motors.base.TorqueSmartMotor;
 import org.texastorque.torquelib.util.KPID;
+import org.texastorque.torquelib.util.TorqueClock;
+import org.texastorque.torquelib.util.TorqueConfigPipeline;
 
 /**
  * The Texas Torque wrapper for the Falcon (SRX) motor controller.
@@ -32,13 +34,27 @@ public final class TorqueFalcon extends TorqueMotor implements TorqueSmartMotor
 
     private NeutralMode neutralMode;
     private final TalonFXConfiguration config;
+    private TorqueConfigPipeline pipeline;
 
     /**
      * Construct a new TorqueFalcon motor.
      *
      * @param port The port (ID) of the motor.
      */
-    public TorqueFalcon(final int port) {
+    public TorqueFalcon(final int port) { this(port, null); }
+
+    /**
+     * Construct a new TorqueFalcon motor and queue its configuration on a pipeline.
+     *
+     * Until the pipeline has finished, configurePID, setSupplyLimit and
+     * setStatorLimit are queued on it after configAllSettings, so they are
+     * applied in order and not overwritten by it. Once it has finished they
+     * configure the motor directly.
+     *
+     * @param port     The port (ID) of the motor.
+     * @param pipeline The pipeline to configure the motor on, or null to configure it now.
+     */
+    public TorqueFalcon(final int port, final TorqueConfigPipeline pipeline) {
         super(port);
 
         motor = new WPI_TalonFX(port);
@@ -48,10 +64,15 @@ public final class TorqueFalcon extends TorqueMotor implements TorqueSmartMotor
 
         config = new TalonFXConfiguration();
         config.primaryPID.selectedFeedbackSensor = FeedbackDevice.IntegratedSensor;
-        motor.configAllSettings(config);
+        this.pipeline = pipeline;
+        if (pipeline == null)
+            motor.configAllSettings(config);
+        else
+            pipeline.add("TorqueFalcon " + port, "configAllSettings",
+                         () -> motor.configAllSettings(config) == ErrorCode.OK);
 
         this.lastVelocity = 0;
-        this.lastVelocityTime = System.currentTimeMillis();
+        this.lastVelocityTime = TorqueClock.millis();
     }
 
     /**
@@ -98,13 +119,28 @@ public final class TorqueFalcon extends TorqueMotor implements TorqueSmartMotor
      */
     @Override
     public final void configurePID(final KPID kPID) {
-        motor.config_kP(0, kPID.getPGains());
-        motor.config_kI(0, kPID.getIGains());
-        motor.config_kD(0, kPID.getDGains());
-        motor.config_kF(0, kPID.getFGains());
-        if (kPID.getIZone() > 0) motor.config_IntegralZone(0, kPID.getIZone());
-        motor.configPeakOutputForward(kPID.getMax());
-        motor.configPeakOutputReverse(kPID.getMin());
+        if (!queueOnPipeline("configurePID", () -> tryConfigurePID(kPID) == ErrorCode.OK)) tryConfigurePID(kPID);
+    }
+
+    /**
+     * Configures the PID controller for the motor now and reports errors.
+     *
+     * @param kPID The KPID value to configure the motor too.
+     * @return The first error, or OK if every setting was accepted.
+     */
+    public final ErrorCode tryConfigurePID(final KPID kPID) {
+        final ErrorCode[] errors = {
+            motor.config_kP(0, kPID.getPGains()),
+            motor.config_kI(0, kPID.getIGains()),
+            motor.config_kD(0, kPID.getDGains()),
+            motor.config_kF(0, kPID.getFGains()),
+            kPID.getIZone() > 0 ? motor.config_IntegralZone(0, kPID.getIZone()) : ErrorCode.OK,
+            motor.configPeakOutputForward(kPID.getMax()),
+            motor.configPeakOutputReverse(kPID.getMin())
+        };
+        for (final ErrorCode e : errors)
+            if (e != ErrorCode.OK) return e;
+        return ErrorCode.OK;
     }
 
     /**
@@ -283,7 +319,7 @@ public final class TorqueFalcon extends TorqueMotor implements TorqueSmartMotor
     @Override
     public final double getAccelerationRPM() {
         final double currentVelocity = getVelocityRPM();
-        final long currentTime = System.currentTimeMillis();
+        final long currentTime = TorqueClock.millis();
 
         final double acceleration = (currentVelocity - lastVelocity) / (currentTime - lastVelocityTime);
 
@@ -299,9 +335,14 @@ public final class TorqueFalcon extends TorqueMotor implements TorqueSmartMotor
      * @param limit Supply limit config.
      */
     public final void setSupplyLimit(final SupplyCurrentLimitConfiguration limit) {
+        if (!queueOnPipeline("setSupplyLimit", () -> applySupplyLimit(limit) == ErrorCode.OK)) applySupplyLimit(limit);
+    }
+
+    private final ErrorCode applySupplyLimit(final SupplyCurrentLimitConfiguration limit) {
         ErrorCode e = motor.configSupplyCurrentLimit(limit);
         if (e != ErrorCode.OK)
             System.out.printf("TorqueFalcon port %d: Error configuring supply limit: %s\n", port, e.name());
+        return e;
     }
 
     /**
@@ -310,9 +351,30 @@ public final class TorqueFalcon extends TorqueMotor implements TorqueSmartMotor
      * @param limit Stator limit config.
      */
     public final void setStatorLimit(final StatorCurrentLimitConfiguration limit) {
+        if (!queueOnPipeline("setStatorLimit", () -> applyStatorLimit(limit) == ErrorCode.OK)) applyStatorLimit(limit);
+    }
+
+    private final ErrorCode applyStatorLimit(final StatorCurrentLimitConfiguration limit) {
         ErrorCode e = motor.configStatorCurrentLimit(limit);
         if (e != ErrorCode.OK)
             System.out.printf("TorqueFalcon port %d: Error configuring supply limit: %s\n", port, e.name());
+        return e;
+    }
+
+    /**
+     * Queues a setting on the pipeline if it has not finished, so it runs
+     * after configAllSettings instead of being overwritten by it.
+     *
+     * @return If the setting was queued, otherwise apply it now.
+     */
+    private final boolean queueOnPipeline(final String name, final TorqueConfigPipeline.Step step) {
+        if (pipeline == null) return false;
+        if (pipeline.isDone()) {
+            pipeline = null;
+            return false;
+        }
+        pipeline.add("TorqueFalcon " + port, name, step);
+        return true;
     }
 
     /**
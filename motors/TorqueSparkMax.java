@@ -16,6 +16,7 @@ import org.texastorque.torquelib.motors.base.TorqueMotor;
 import org.texastorque.torquelib.motors.base.TorquePIDMotor;
 import org.texastorque.torquelib.motors.base.TorqueSmartMotor;
 import org.texastorque.torquelib.util.KPID;
+import org.texastorque.torquelib.util.TorqueClock;
 
 /**
  * The Texas Torque wrapper for the SparkMax motor controller.
@@ -47,7 +48,7 @@ public final class TorqueSparkMax extends TorqueMotor implements TorqueSmartMoto
         super(port);
 
         this.lastVelocity = 0;
-        this.lastVelocityTime = System.currentTimeMillis();
+        this.lastVelocityTime = TorqueClock.millis();
         motor = new CANSparkMax(port, MotorType.kBrushless);
         encoder = motor.getEncoder();
         analogEncoder = motor.getAnalog(SparkMaxAnalogSensor.Mode.kAbsolute);
@@ -93,12 +94,27 @@ public final class TorqueSparkMax extends TorqueMotor implements TorqueSmartMoto
      */
     @Override
     public final void configurePID(final KPID kPID) {
-        pidController.setP(kPID.getPGains());
-        pidController.setI(kPID.getIGains());
-        pidController.setD(kPID.getDGains());
-        pidController.setFF(kPID.getFGains());
-        if (kPID.getIZone() > 0) pidController.setIZone(kPID.getIZone());
-        pidController.setOutputRange(kPID.getMin(), kPID.getMax());
+        tryConfigurePID(kPID);
+    }
+
+    /**
+     * Configures the PID controller for the motor and reports errors.
+     *
+     * @param kPID The KPID value to configure the motor too.
+     * @return The first error, or kOk if every setting was accepted.
+     */
+    public final REVLibError tryConfigurePID(final KPID kPID) {
+        final REVLibError[] errors = {
+            pidController.setP(kPID.getPGains()),
+            pidController.setI(kPID.getIGains()),
+            pidController.setD(kPID.getDGains()),
+            pidController.setFF(kPID.getFGains()),
+            kPID.getIZone() > 0 ? pidController.setIZone(kPID.getIZone()) : REVLibError.kOk,
+            pidController.setOutputRange(kPID.getMin(), kPID.getMax())
+        };
+        for (final REVLibError e : errors)
+            if (e != REVLibError.kOk) return e;
+        return REVLibError.kOk;
     }
 
     /**
@@ -302,7 +318,7 @@ public final class TorqueSparkMax extends TorqueMotor implements TorqueSmartMoto
     @Override
     public final double getAccelerationRPM() {
         final double currentVelocity = getVelocityRPM();
-        final long currentTime = System.currentTimeMillis();
+        final long currentTime = TorqueClock.millis();
 
         final double acceleration = (currentVelocity - lastVelocity) / (currentTime - lastVelocityTime);
 
@@ -361,8 +377,10 @@ public final class TorqueSparkMax extends TorqueMotor implements TorqueSmartMoto
 
     /**
      * Burns the SparkMax flash.
+     *
+     * @return The error, or kOk.
      */
-    public final void burnFlash() { motor.burnFlash(); }
+    public final REVLibError burnFlash() { return motor.burnFlash(); }
 
     /**
      * Configures an I-Zone on PID.
@@ -380,12 +398,13 @@ public final class TorqueSparkMax extends TorqueMotor implements TorqueSmartMoto
      * Set a supply limit for the SparkMax.
      *
      * @param limit max amps.
+     * @return The error, or kOk.
      */
-
-    public final void setSupplyLimit(final int limit) {
+    public final REVLibError setSupplyLimit(final int limit) {
         REVLibError e = motor.setSmartCurrentLimit(limit);
         if (e != REVLibError.kOk)
             System.out.printf("TorqueSparkMax port %d: Error configuring supply limit: %s\n", port, e.name());
+        return e;
     }
 
     // Smart motion functions.
@@ -10,6 +10,7 @@ import org.texastorque.torquelib.motors.base.TorqueMotor;
 import org.texastorque.torquelib.motors.base.TorquePIDMotor;
 import org.texastorque.torquelib.motors.base.TorqueSmartMotor;
 import org.texastorque.torquelib.util.KPID;
+import org.texastorque.torquelib.util.TorqueClock;
 
 /**
  * The Texas Torque wrapper for the Talon (SRX) motor controller.
@@ -35,7 +36,7 @@ public final class TorqueTalon extends TorqueMotor implements TorqueSmartMotor {
         super(port);
 
         this.lastVelocity = 0;
-        this.lastVelocityTime = System.currentTimeMillis();
+        this.lastVelocityTime = TorqueClock.millis();
         motor = new WPI_TalonSRX(port);
     }
 
@@ -81,13 +82,28 @@ public final class TorqueTalon extends TorqueMotor implements TorqueSmartMotor {
      */
     @Override
     public final void configurePID(final KPID kPID) {
-        motor.config_kP(0, kPID.getPGains());
-        motor.config_kI(0, kPID.getIGains());
-        motor.config_kD(0, kPID.getDGains());
-        motor.config_kF(0, kPID.getFGains());
-        if (kPID.getIZone() > 0) motor.config_IntegralZone(0, kPID.getIZone());
-        motor.configPeakOutputForward(kPID.getMax());
-        motor.configPeakOutputReverse(kPID.getMin());
+        tryConfigurePID(kPID);
+    }
+
+    /**
+     * Configures the PID controller for the motor and reports errors.
+     *
+     * @param kPID The KPID value to configure the motor too.
+     * @return The first error, or OK if every setting was accepted.
+     */
+    public final ErrorCode tryConfigurePID(final KPID kPID) {
+        final ErrorCode[] errors = {
+            motor.config_kP(0, kPID.getPGains()),
+            motor.config_kI(0, kPID.getIGains()),
+            motor.config_kD(0, kPID.getDGains()),
+            motor.config_kF(0, kPID.getFGains()),
+            kPID.getIZone() > 0 ? motor.config_IntegralZone(0, kPID.getIZone()) : ErrorCode.OK,
+            motor.configPeakOutputForward(kPID.getMax()),
+            motor.configPeakOutputReverse(kPID.getMin())
+        };
+        for (final ErrorCode e : errors)
+            if (e != ErrorCode.OK) return e;
+        return ErrorCode.OK;
     }
 
     /**
@@ -266,7 +282,7 @@ public final class TorqueTalon extends TorqueMotor implements TorqueSmartMotor {
     @Override
     public final double getAccelerationRPM() {
         final double currentVelocity = getVelocityRPM();
-        final long currentTime = System.currentTimeMillis();
+        final long currentTime = TorqueClock.millis();
 
         final double acceleration = (currentVelocity - lastVelocity) / (currentTime - lastVelocityTime);
 
@@ -280,11 +296,13 @@ public final class TorqueTalon extends TorqueMotor implements TorqueSmartMotor {
      * Set max amps supply.
      *
      * @param limit Max amps.
+     * @return The error, or OK.
      */
-    public final void setSupplyLimit(final SupplyCurrentLimitConfiguration limit) {
+    public final ErrorCode setSupplyLimit(final SupplyCurrentLimitConfiguration limit) {
         ErrorCode e = motor.configSupplyCurrentLimit(limit);
         if (e != ErrorCode.OK)
             System.out.printf("TorqueTalon port %d: Error configuring supply limit: %s\n", port, e.name());
+        return e;
     }
 
     /**
@@ -296,6 +314,8 @@ public final class TorqueTalon extends TorqueMotor implements TorqueSmartMotor {
 
     /**
      * Zero the encoder.
+     *
+     * @return The error, or OK.
      */
-    public final void zeroEncoder() { motor.setSelectedSensorPosition(0); }
+    public final ErrorCode zeroEncoder() { return motor.setSelectedSensorPosition(0); }
 }
\ No newline at end of file
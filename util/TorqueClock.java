@@ -0,0 +1,168 @@
+package org.texastorque.torquelib.util;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The monotonic clock every part of TorqueLib reads time from.
+ *
+ * By default this is the real system clock. Installing a virtual clock with
+ * useVirtual() freezes time until it is advanced, and makes sleepUntil()
+ * jump straight to the deadline instead of waiting, so a loop driven by the
+ * clock (and everything it calls) can run headless as fast as the CPU allows.
+ * TorqueRobotBase paces its periodic loop on this clock when it is virtual,
+ * instead of waiting for driver station packets.
+ *
+ * Anything that measures CPU cost, such as loop timing, budgets and
+ * profiling, reads System.nanoTime directly instead. Under a virtual clock
+ * no time passes while code runs, so every measurement would come out as
+ * zero.
+ *
+ * @author Justus Languell
+ */
+public final class TorqueClock {
+    private TorqueClock() {}
+
+    /**
+     * A source of monotonic time.
+     */
+    public interface Source {
+        /**
+         * Returns the current time.
+         *
+         * @return The time in nanoseconds, only differences are meaningful.
+         */
+        public long nanos();
+
+        /**
+         * Blocks until the clock reaches a deadline.
+         *
+         * @param deadline The deadline in nanoseconds.
+         */
+        public void sleepUntil(final long deadline);
+    }
+
+    /**
+     * The real clock, backed by System.nanoTime.
+     */
+    public static final Source REAL = new Source() {
+        // How close to the deadline we stop parking and start spinning.
+        private static final long SPIN_THRESHOLD_NANOS = 100_000;
+
+        @Override
+        public final long nanos() {
+            return System.nanoTime();
+        }
+
+        @Override
+        public final void sleepUntil(final long deadline) {
+            long remaining;
+            while ((remaining = deadline - System.nanoTime()) > SPIN_THRESHOLD_NANOS)
+                LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NANOS);
+            while (deadline - System.nanoTime() > 0) Thread.onSpinWait();
+        }
+    };
+
+    /**
+     * A virtual clock that only moves when it is advanced or slept on.
+     */
+    public static final class Virtual implements Source {
+        private volatile long now;
+
+        public Virtual() { this(0); }
+
+        /**
+         * Creates a virtual clock.
+         *
+         * @param start The starting time in nanoseconds.
+         */
+        public Virtual(final long start) { now = start; }
+
+        @Override
+        public final long nanos() {
+            return now;
+        }
+
+        /**
+         * Jumps to the deadline if it is in the future.
+         *
+         * @param deadline The deadline in nanoseconds.
+         */
+        @Override
+        public final synchronized void sleepUntil(final long deadline) {
+            if (deadline > now) now = deadline;
+        }
+
+        /**
+         * Moves the clock forward.
+         *
+         * @param nanos The time to advance in nanoseconds.
+         */
+        public final synchronized void advance(final long nanos) {
+            if (nanos > 0) now += nanos;
+        }
+
+        /**
+         * Moves the clock forward.
+         *
+         * @param seconds The time to advance in seconds.
+         */
+        public final void advanceSeconds(final double seconds) { advance(Math.round(seconds * 1e9)); }
+    }
+
+    private static volatile Source source = REAL;
+
+    /**
+     * Sets the clock source.
+     *
+     * @param source The new source.
+     */
+    public static final void setSource(final Source source) { TorqueClock.source = source; }
+
+    public static final Source getSource() { return source; }
+
+    /**
+     * Installs and returns a new virtual clock starting at zero.
+     *
+     * @return The virtual clock.
+     */
+    public static final Virtual useVirtual() {
+        final Virtual clock = new Virtual();
+        source = clock;
+        return clock;
+    }
+
+    /**
+     * Goes back to the real clock.
+     */
+    public static final void useReal() { source = REAL; }
+
+    public static final boolean isVirtual() { return source != REAL; }
+
+    /**
+     * Returns the current time.
+     *
+     * @return The time in nanoseconds.
+     */
+    public static final long nanos() { return source.nanos(); }
+
+    /**
+     * Returns the current time.
+     *
+     * @return The time in milliseconds.
+     */
+    public static final long millis() { return source.nanos() / 1_000_000; }
+
+    /**
+     * Returns the current time.
+     *
+     * @return The time in seconds.
+     */
+    public static final double seconds() { return source.nanos() * 1e-9; }
+
+    /**
+     * Blocks until the clock reaches a deadline, or returns immediately with a virtual clock.
+     *
+     * @param deadline The deadline in nanoseconds.
+     */
+    public static final void sleepUntil(final long deadline) { source.sleepUntil(deadline); }
+}
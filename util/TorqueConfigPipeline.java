@@ -0,0 +1,265 @@
+package org.texastorque.torquelib.util;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs device configuration in the background instead of blocking the
+ * constructors of every motor controller one after another.
+ *
+ * Configuration steps are queued per device. Steps for the same device run
+ * in the order they were added, while different devices are configured
+ * concurrently. Each step gets a timeout and a number of retries, and steps
+ * that still fail are reported to the driver station.
+ *
+ * A step that times out is not retried, since the call cannot be stopped and
+ * a retry would run at the same time as it. The device counts as failed and
+ * its remaining steps are skipped.
+ *
+ * Steps added after start() run once every earlier step has finished, one
+ * at a time in the order they were added, so setup code can keep
+ * configuring devices while the pipeline runs. If steps are queued but
+ * start() is not called within 10 seconds, a warning is reported.
+ *
+ * Usage:
+ * <pre>
+ * final TorqueConfigPipeline pipeline = new TorqueConfigPipeline();
+ * final TorqueFalcon shooter = new TorqueFalcon(5, pipeline);
+ * ...
+ * pipeline.start();
+ * // continue with setup that does not need the devices
+ * pipeline.await(5);
+ * </pre>
+ *
+ * @author Justus Languell
+ */
+public final class TorqueConfigPipeline {
+    /**
+     * A single configuration call.
+     */
+    @FunctionalInterface
+    public interface Step {
+        /**
+         * Runs the configuration call.
+         *
+         * @return If the call succeeded.
+         */
+        public boolean configure();
+
+        /**
+         * Wraps a call that reports errors by throwing or not at all.
+         *
+         * @param call The configuration call.
+         * @return A step that succeeds unless the call throws.
+         */
+        public static Step of(final Runnable call) {
+            return () -> {
+                call.run();
+                return true;
+            };
+        }
+    }
+
+    private static final class Task {
+        private final String name;
+        private final Step step;
+
+        private Task(final String name, final Step step) {
+            this.name = name;
+            this.step = step;
+        }
+    }
+
+    private final LinkedHashMap<String, ArrayList<Task>> devices = new LinkedHashMap<String, ArrayList<Task>>();
+    private final List<String> failures = Collections.synchronizedList(new ArrayList<String>());
+    private final long timeoutMillis;
+    private final int retries, parallelism;
+
+    private static final long START_WARNING_SECONDS = 10;
+
+    private final Set<String> stuckDevices = ConcurrentHashMap.newKeySet();
+    private ExecutorService stepThreads = null;
+    private CompletableFuture<Void> future = null;
+    // The last step added after start, or null if there is none.
+    private CompletableFuture<Void> late = null;
+
+    /**
+     * Creates a pipeline that configures 4 devices at a time with a 1 second
+     * timeout and 2 retries per step.
+     */
+    public TorqueConfigPipeline() { this(4, 1, 2); }
+
+    /**
+     * Creates a pipeline.
+     *
+     * @param parallelism The number of devices to configure at the same time.
+     * @param timeout     The time a step may take before it counts as failed in seconds.
+     * @param retries     The number of times a failed step is retried.
+     */
+    public TorqueConfigPipeline(final int parallelism, final double timeout, final int retries) {
+        this.parallelism = Math.max(1, parallelism);
+        this.timeoutMillis = Math.round(timeout * 1000);
+        this.retries = Math.max(0, retries);
+    }
+
+    /**
+     * Queues a configuration step for a device. After start(), the step runs
+     * once every step added before it has finished.
+     *
+     * @param device The name of the device, such as "TorqueFalcon 5".
+     * @param name   The name of the step, for reporting.
+     * @param step   The configuration call.
+     */
+    public final synchronized void add(final String device, final String name, final Step step) {
+        final Task task = new Task(name, step);
+        if (future != null) {
+            late = (late == null ? future : late).handleAsync((v, e) -> {
+                if (!stuckDevices.contains(device)) runTask(device, task);
+                return null;
+            }, stepThreads);
+            return;
+        }
+
+        if (devices.isEmpty())
+            CompletableFuture.runAsync(() -> {
+                if (!isStarted())
+                    DriverStation.reportWarning("TorqueConfigPipeline: steps are queued but start() was not called",
+                                                false);
+            }, CompletableFuture.delayedExecutor(START_WARNING_SECONDS, TimeUnit.SECONDS));
+        devices.computeIfAbsent(device, d -> new ArrayList<Task>()).add(task);
+    }
+
+    /**
+     * Starts configuring in the background and returns immediately.
+     *
+     * @return A future that completes once every step added before start has finished.
+     */
+    public final synchronized CompletableFuture<Void> start() {
+        if (future != null) return future;
+
+        final ExecutorService deviceThreads = Executors.newFixedThreadPool(parallelism, r -> daemon(r, "Config"));
+        // Kept for steps added later, idle threads of a cached pool exit on their own.
+        stepThreads = Executors.newCachedThreadPool(r -> daemon(r, "ConfigStep"));
+
+        final ArrayList<CompletableFuture<Void>> chains = new ArrayList<CompletableFuture<Void>>();
+        for (final String device : devices.keySet()) {
+            final ArrayList<Task> tasks = devices.get(device);
+            chains.add(CompletableFuture.runAsync(() -> {
+                for (final Task task : tasks)
+                    if (!runTask(device, task)) break;
+            }, deviceThreads));
+        }
+
+        future = CompletableFuture.allOf(chains.toArray(new CompletableFuture<?>[0])).whenComplete((v, e) -> {
+            deviceThreads.shutdown();
+            if (failures.isEmpty())
+                System.out.println("TorqueConfigPipeline: all devices configured");
+            else
+                System.out.printf("TorqueConfigPipeline: %d steps failed\n", failures.size());
+        });
+        return future;
+    }
+
+    /**
+     * Runs a step with retries.
+     *
+     * @return False if the device should not be configured further.
+     */
+    private final boolean runTask(final String device, final Task task) {
+        String reason = "unknown";
+        boolean stuck = false;
+        int attempts = 0;
+        while (attempts <= retries) {
+            attempts++;
+            final Future<Boolean> result = stepThreads.submit(task.step::configure);
+            try {
+                if (result.get(timeoutMillis, TimeUnit.MILLISECONDS)) return true;
+                reason = "returned an error";
+            } catch (final TimeoutException e) {
+                reason = "timed out";
+                stuck = true;
+                break;
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                reason = "interrupted";
+                stuck = true;
+                break;
+            } catch (final Exception e) {
+                reason = e.getCause() == null ? e.toString() : e.getCause().toString();
+            }
+        }
+
+        final String failure;
+        if (stuck) {
+            stuckDevices.add(device);
+            failure = String.format("%s %s %s, skipping its remaining steps", device, task.name, reason);
+        } else
+            failure = String.format("%s %s %s after %d attempts", device, task.name, reason, attempts);
+        failures.add(failure);
+        DriverStation.reportError("TorqueConfigPipeline: " + failure, false);
+        return !stuck;
+    }
+
+    private static final Thread daemon(final Runnable runnable, final String name) {
+        final Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Starts the pipeline if needed and waits for it to finish.
+     *
+     * @param timeout The longest time to wait in seconds.
+     * @return If every step succeeded in time.
+     */
+    public final boolean await(final double timeout) {
+        start();
+        try {
+            last().get(Math.round(timeout * 1000), TimeUnit.MILLISECONDS);
+            return failures.isEmpty();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (final Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns if the pipeline has started.
+     *
+     * @return If start or await has been called.
+     */
+    public final synchronized boolean isStarted() { return future != null; }
+
+    /**
+     * Returns if the pipeline has finished, including steps added after start.
+     *
+     * @return If every device is configured or has failed.
+     */
+    public final synchronized boolean isDone() { return future != null && last().isDone(); }
+
+    private final synchronized CompletableFuture<Void> last() { return late != null ? late : future; }
+
+    /**
+     * Returns the steps that failed.
+     *
+     * @return A description of each failed step.
+     */
+    public final List<String> getFailures() {
+        synchronized (failures) {
+            return new ArrayList<String>(failures);
+        }
+    }
+}
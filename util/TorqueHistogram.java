@@ -0,0 +1,83 @@
+package org.texastorque.torquelib.util;
+
+/**
+ * A fixed memory, allocation free histogram for non-negative long values,
+ * such as durations in nanoseconds.
+ *
+ * Values are stored in log-linear buckets (16 per power of two), so every
+ * reported percentile is within about 6% of the true value. Recording is
+ * constant time and never allocates, which makes it safe to call in the loop.
+ *
+ * Not thread safe, record and read from the same thread.
+ *
+ * @author Justus Languell
+ */
+public final class TorqueHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_BITS = 40; // ~18 minutes in nanoseconds
+    private static final long MAX_VALUE = (1L << MAX_BITS) - 1;
+    private static final int BUCKETS = (MAX_BITS - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKETS];
+    private long total = 0, min = Long.MAX_VALUE, max = 0;
+
+    /**
+     * Records a value. Negative values are recorded as zero and values
+     * over ~2^40 are clamped.
+     *
+     * @param value The value to record.
+     */
+    public final void record(final long value) {
+        final long v = Math.max(0, Math.min(value, MAX_VALUE));
+        counts[indexOf(v)]++;
+        total++;
+        if (v < min) min = v;
+        if (v > max) max = v;
+    }
+
+    /**
+     * Clears all recorded values.
+     */
+    public final void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts[i] = 0;
+        total = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    /**
+     * Returns the value at the given percentile.
+     *
+     * @param percentile The percentile [0, 100].
+     * @return The upper bound of the bucket that holds the percentile, or 0 if empty.
+     */
+    public final long getPercentile(final double percentile) {
+        if (total == 0) return 0;
+        final long target = Math.max(1, (long)Math.ceil(total * TorqueMathUtil.constrain(percentile, 0, 100) / 100.));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            if ((seen += counts[i]) >= target) return Math.min(upperBoundOf(i), max);
+        }
+        return max;
+    }
+
+    public final long getCount() { return total; }
+
+    public final long getMin() { return total == 0 ? 0 : min; }
+
+    public final long getMax() { return max; }
+
+    private static final int indexOf(final long value) {
+        if (value < 2 * SUB_BUCKETS) return (int)value;
+        final int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int)((value >> shift) - SUB_BUCKETS);
+    }
+
+    private static final long upperBoundOf(final int index) {
+        if (index < 2 * SUB_BUCKETS) return index;
+        final int shift = index / SUB_BUCKETS - 1;
+        final long low = (long)(index % SUB_BUCKETS + SUB_BUCKETS) << shift;
+        return low + (1L << shift) - 1;
+    }
+}
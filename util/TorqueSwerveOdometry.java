@@ -7,7 +7,6 @@ import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Twist2d;
 import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
-import edu.wpi.first.util.WPIUtilJNI;
 
 /**
  * A modified form of the WPILIBJ SwerveOddometry class.
@@ -124,6 +123,6 @@ public final class TorqueSwerveOdometry {
      * @return The new pose of the robot.
      */
     public Pose2d update(Rotation2d gyroAngle, SwerveModuleState... moduleStates) {
-        return updateWithTime(WPIUtilJNI.now() * 1.0e-6, gyroAngle, moduleStates);
+        return updateWithTime(TorqueClock.seconds(), gyroAngle, moduleStates);
     }
 }
@@ -0,0 +1,154 @@
+package org.texastorque.torquelib.util;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import org.texastorque.torquelib.auto.TorqueSequence;
+import org.texastorque.torquelib.log.TorqueTelemetry;
+
+/**
+ * Warms up the JIT on registered hot paths while the robot is disabled, so
+ * the first ticks of autonomous run at steady state latency.
+ *
+ * Call run() from disabledPeriodic. Each call runs the hot paths round robin
+ * for a small time budget. Warm-up is done once every hot path has run
+ * enough times to be compiled and the JIT has stopped compiling for a few
+ * calls in a row.
+ *
+ * Hot paths run for real, so they must only write to no-op or simulated
+ * outputs (motor outputs are ignored by the hardware while disabled, but
+ * subsystem state is not), for example a swerve module state calculation
+ * on a scratch object or odometry on a scratch TorqueSwerveOdometry.
+ *
+ * @author Justus Languell
+ */
+public final class TorqueWarmup {
+    // Comfortably past the tiered compilation thresholds of HotSpot.
+    private static final long DEFAULT_MIN_RUNS = 20000;
+    // Calls in a row without new JIT activity before warm-up is done.
+    private static final int STABLE_CALLS = 5;
+
+    private static final class HotPath {
+        private final String name;
+        private final Runnable path;
+        private long runs = 0;
+
+        private HotPath(final String name, final Runnable path) {
+            this.name = name;
+            this.path = path;
+        }
+    }
+
+    private final ArrayList<HotPath> paths = new ArrayList<HotPath>();
+    private final ArrayList<TorqueSequence> sequences = new ArrayList<TorqueSequence>();
+    private final CompilationMXBean jit = ManagementFactory.getCompilationMXBean();
+    private final long budgetNanos, minRuns;
+    private final int doneKey = TorqueTelemetry.key("Warmup Done");
+
+    private long lastCompileTime = -1;
+    private int stableCalls = 0;
+    private boolean done = false;
+
+    /**
+     * Creates a warm-up with a 5 ms budget per call.
+     */
+    public TorqueWarmup() { this(.005, DEFAULT_MIN_RUNS); }
+
+    /**
+     * Creates a warm-up.
+     *
+     * @param budget  The time to spend per call to run() in seconds.
+     * @param minRuns The number of times each hot path must run.
+     */
+    public TorqueWarmup(final double budget, final long minRuns) {
+        this.budgetNanos = Math.round(budget * 1e9);
+        this.minRuns = minRuns;
+    }
+
+    /**
+     * Registers a hot path.
+     *
+     * @param name The name of the hot path, for reporting.
+     * @param path The hot path, it must only write to no-op or simulated outputs.
+     */
+    public final void add(final String name, final Runnable path) {
+        paths.add(new HotPath(name, path));
+        done = false;
+    }
+
+    /**
+     * Registers a sequence as a hot path. The sequence is run repeatedly,
+     * reset whenever it ends and reset again when warm-up is done, so its
+     * commands must only write to no-op or simulated outputs.
+     *
+     * @param sequence The sequence.
+     */
+    public final void add(final TorqueSequence sequence) {
+        sequences.add(sequence);
+        add(sequence.getName(), () -> {
+            sequence.run();
+            if (sequence.hasEnded()) sequence.reset();
+        });
+    }
+
+    /**
+     * Runs the hot paths for one time budget.
+     *
+     * @return If warm-up is done.
+     */
+    public final boolean run() {
+        if (done || paths.isEmpty()) return done;
+
+        final long start = System.nanoTime();
+        do {
+            for (int i = 0; i < paths.size(); i++) {
+                final HotPath hotPath = paths.get(i);
+                try {
+                    hotPath.path.run();
+                    hotPath.runs++;
+                } catch (final RuntimeException e) {
+                    DriverStation.reportWarning(
+                            String.format("TorqueWarmup: dropping hot path %s: %s", hotPath.name, e), false);
+                    paths.remove(i--);
+                }
+            }
+        } while (System.nanoTime() - start < budgetNanos);
+
+        for (final HotPath hotPath : paths)
+            if (hotPath.runs < minRuns) return false;
+
+        if (jit != null && jit.isCompilationTimeMonitoringSupported()) {
+            final long compileTime = jit.getTotalCompilationTime();
+            stableCalls = compileTime == lastCompileTime ? stableCalls + 1 : 0;
+            lastCompileTime = compileTime;
+            if (stableCalls < STABLE_CALLS) return false;
+        }
+
+        done = true;
+        for (final TorqueSequence sequence : sequences) sequence.reset();
+        for (final HotPath hotPath : paths)
+            System.out.printf("TorqueWarmup: %s ran %d times\n", hotPath.name, hotPath.runs);
+        System.out.println("TorqueWarmup: done");
+        TorqueTelemetry.putBoolean(doneKey, true);
+        return true;
+    }
+
+    /**
+     * Returns if warm-up is done.
+     *
+     * @return If warm-up is done.
+     */
+    public final boolean isDone() { return done; }
+
+    /**
+     * Starts warm-up over, for example after new code paths were loaded.
+     */
+    public final void reset() {
+        for (final HotPath hotPath : paths) hotPath.runs = 0;
+        lastCompileTime = -1;
+        stableCalls = 0;
+        done = false;
+        TorqueTelemetry.putBoolean(doneKey, false);
+    }
+}